@@ -19,4 +19,31 @@ CREATE TABLE "cards" (
                          "timestamp" timestamp default current_timestamp
 );
 
+-- unopened packages, oldest first; a package row is deleted when it is bought
+CREATE TABLE "packages" (
+                         "package_id" bigserial PRIMARY KEY,
+                         "card_ids" text[] NOT NULL
+);
+
 ALTER TABLE "cards" ADD FOREIGN KEY ("card_owner_username") REFERENCES "users" ("username");
+
+-- owner lookups (stack/deck of one user) must not scan the whole cards table
+CREATE INDEX "cards_owner_deck_idx" ON "cards" ("card_owner_username", "is_in_deck");
+
+-- one small row per battle: the log is not stored, it is played again from the seed and both starting decks
+CREATE TABLE "battles" (
+                         "battle_id" bigserial PRIMARY KEY,
+                         "seed" bigint NOT NULL,
+                         "username1" text NOT NULL,
+                         "username2" text NOT NULL,
+                         "deck1" text[] NOT NULL,
+                         "deck2" text[] NOT NULL,
+                         "winner" smallint NOT NULL, -- 0 draw, 1 username1, 2 username2
+                         "elo_change1" smallint NOT NULL,
+                         "elo_change2" smallint NOT NULL,
+                         "rounds" smallint NOT NULL,
+                         "timestamp" timestamp default current_timestamp
+);
+
+ALTER TABLE "battles" ADD FOREIGN KEY ("username1") REFERENCES "users" ("username");
+ALTER TABLE "battles" ADD FOREIGN KEY ("username2") REFERENCES "users" ("username");
@@ -1,15 +1,27 @@
 import app.App;
+import server.ExecutionMode;
+import server.NioServer;
 import server.Server;
 
 import java.io.IOException;
+import java.util.Locale;
 
 public class Main {
     public static void main(String[] args) {
 
         App app = new App();
-        Server server = new Server(app, 10001);
         try {
-            server.start();
+            //-Dserver.mode=nio selects the selector based server, default is one thread per connection
+            if ("nio".equalsIgnoreCase(System.getProperty("server.mode"))) {
+                new NioServer(app, 10001).start();
+            } else {
+                //-Dserver.executor=platform|fixed_pool|virtual decides where each connection runs
+                ExecutionMode executionMode = ExecutionMode.valueOf(
+                        System.getProperty("server.executor", "platform").toUpperCase(Locale.ROOT)
+                );
+                int poolSize = Integer.getInteger("server.poolSize", 200);
+                new Server(app, 10001, executionMode, poolSize).start();
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -2,22 +2,47 @@ package app;
 
 import app.controllers.BattleController;
 import app.controllers.CardController;
+import app.controllers.MetricsController;
+import app.controllers.SimulationController;
+import app.controllers.TournamentController;
 import app.controllers.UserController;
+import app.daos.BattleDao;
+import app.daos.CachedUserDao;
 import app.daos.CardDao;
-import app.daos.UserDao;
+import app.daos.PackageDao;
+import app.daos.UserWithCardsDao;
+import app.repositories.BattleRepository;
 import app.repositories.CardRepository;
 import app.repositories.UserWithCardsRepository;
+import app.services.BattleSimulator;
+import app.services.ConnectionPool;
 import app.services.DatabaseConnection;
+import app.services.DeckSuggester;
+import app.services.Leaderboard;
+import app.services.Matchmaker;
+import app.services.RequestContext;
+import app.services.TinyLfuCache;
+import app.services.TokenService;
+import app.services.TournamentEngine;
 import http.ContentType;
 import http.HttpStatus;
+import http.Method;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import server.Request;
+import server.AuthRequirement;
 import server.Response;
+import server.RouteMatch;
+import server.Router;
 import server.ServerApp;
 
-import java.sql.Connection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 @Setter(AccessLevel.PRIVATE)
@@ -25,138 +50,240 @@ import java.sql.Connection;
 public class App implements ServerApp {
 
 
-    private Connection connection;
+    private ConnectionPool connectionPool;
 
     private UserController userController;
     private CardController cardController;
     private BattleController battleController;
+    private MetricsController metricsController;
+    private SimulationController simulationController;
+    private TournamentController tournamentController;
 
     private CardDao cardDao;
-    private UserDao userDao;
+    private CachedUserDao userDao;
+    private PackageDao packageDao;
+    private UserWithCardsDao userWithCardsDao;
 
     private UserWithCardsRepository userWithCardsRepository;
     private CardRepository cardRepository;
 
+    private TokenService tokenService;
+    private Matchmaker matchmaker;
+    private Router router;
+
     public App() {
-        setConnection(new DatabaseConnection().getConnection());
+        setConnectionPool(new ConnectionPool(
+                new DatabaseConnection(),
+                Integer.getInteger("db.pool.minSize", 2),
+                Integer.getInteger("db.pool.maxSize", 20),
+                Long.getLong("db.pool.acquireTimeout", 5000),
+                Long.getLong("db.pool.leakThreshold", 30000)
+        ));
+
+        //hot users are served from memory, the cache is updated on every write through the dao
+        setUserDao(new CachedUserDao(getConnectionPool(), new TinyLfuCache<>(
+                Integer.getInteger("cache.users.maxSize", 10000),
+                Long.getLong("cache.users.ttl", 60000)
+        )));
+        setCardDao(new CardDao(getConnectionPool()));
+        setPackageDao(new PackageDao(getConnectionPool()));
+        setUserWithCardsDao(new UserWithCardsDao(getConnectionPool()));
 
-        setUserDao(new UserDao(getConnection()));
-        setCardDao(new CardDao(getConnection()));
+        //shared, battles change the leaderboard too
+        Leaderboard leaderboard = new Leaderboard();
+        setUserWithCardsRepository(new UserWithCardsRepository(getConnectionPool(), getUserDao(), getCardDao(), getUserWithCardsDao(), leaderboard));
+        setCardRepository(new CardRepository(getConnectionPool(), getUserDao(), getCardDao(), getPackageDao()));
 
-        setUserWithCardsRepository(new UserWithCardsRepository(getUserDao(), getCardDao()));
-        setCardRepository(new CardRepository(getCardDao()));
+        setTokenService(TokenService.fromSystemProperties());
 
-        setUserController(new UserController(getUserWithCardsRepository(), getCardDao() ,getUserDao()));
+        setUserController(new UserController(getUserWithCardsRepository(), getCardDao() ,getUserDao(), getTokenService()));
         setCardController(new CardController(getUserWithCardsRepository(), getCardRepository(), getCardDao(), getUserDao()));
-        setBattleController(new BattleController(getUserWithCardsRepository(), getCardRepository(), getCardDao(), getUserDao()));
+        //the sweeper widens the elo window of waiting players and expires their tickets
+        setMatchmaker(Matchmaker.fromSystemProperties());
+        getMatchmaker().start(Long.getLong("matchmaking.sweepInterval", 100));
+        BattleRepository battleRepository = new BattleRepository(getConnectionPool(), getUserDao(), getCardDao(), new BattleDao(getConnectionPool()), leaderboard);
+        setBattleController(new BattleController(getUserWithCardsRepository(), getCardRepository(), getCardDao(), getUserDao(),
+                battleRepository, getMatchmaker(),
+                createBattleExecutor(
+                        Integer.getInteger("battle.poolSize", Runtime.getRuntime().availableProcessors()),
+                        Integer.getInteger("battle.queueSize", 1000)
+                )));
+        //simulated battles and deck searches run in memory on their own fork/join pool, next to the real battles
+        BattleSimulator battleSimulator = new BattleSimulator(Integer.getInteger("simulation.parallelism", Runtime.getRuntime().availableProcessors()));
+        setSimulationController(new SimulationController(getUserWithCardsRepository(), getCardDao(), battleSimulator,
+                new DeckSuggester(battleSimulator,
+                        Integer.getInteger("deck.suggest.opponents", 32),
+                        Long.getLong("deck.suggest.timeBudget", 500)),
+                Integer.getInteger("simulation.maxBattles", 1000000)));
+        setTournamentController(new TournamentController(getUserWithCardsRepository(), new TournamentEngine(battleRepository,
+                createTournamentExecutor(
+                        Integer.getInteger("tournament.poolSize", Runtime.getRuntime().availableProcessors()),
+                        Integer.getInteger("tournament.queueSize", 1000)
+                ), Long.getLong("tournament.retention", 3600000))));
+        setMetricsController(new MetricsController(getConnectionPool(), getUserDao().getCache(), getMatchmaker()));
+
+        setRouter(createRouter());
     }
 
-    public Response handleRequest(Request request) {
+    private Router createRouter() {
+        Router router = new Router();
 
-        String token = request.getToken();
-        if(token != null && !getUserWithCardsRepository().validateToken(token)) {
-            return this.returnUnauthorizedResponse();
-        }
+        //creates a new user
+        router.addRoute(Method.POST, "/users", AuthRequirement.NONE,
+                (request, match) -> getUserController().createUser(request.getBody()));
+        //login with existing user
+        router.addRoute(Method.POST, "/sessions", AuthRequirement.NONE,
+                (request, match) -> getUserController().loginUser(request.getBody()));
+        //create package, only admin is allowed to create packages
+        router.addRoute(Method.POST, "/packages", AuthRequirement.ADMIN,
+                (request, match) -> getCardController().createPackage(request.getBody()));
+        //buy package
+        router.addRoute(Method.POST, "/transactions/packages", AuthRequirement.USER,
+                (request, match) -> getCardController().openPackage(request.getUsername()));
+        //enter battle, ?log=none|summary|full (default) decides how much of the battle is returned
+        router.addAsyncRoute(Method.POST, "/battles", AuthRequirement.USER,
+                (request, match) -> getBattleController().startBattle(request.getUsername(), request.getQueryParameter("log")));
+        //the log of a past battle, played again from its seed, same ?log= as POST /battles
+        router.addRoute(Method.GET, "/battles/{id:long}", AuthRequirement.USER,
+                (request, match) -> getBattleController().getBattle(Long.parseLong(match.getParameter("id")), request.getQueryParameter("log")));
+        //leave the battle queue
+        router.addRoute(Method.DELETE, "/battles", AuthRequirement.USER,
+                (request, match) -> getBattleController().cancelBattle(request.getUsername()));
 
-        switch (request.getMethod()) {
-            case POST: {
-                //creates a new user
-                if(request.getPathname().matches("/users")) {
-                    return this.getUserController().createUser(request.getBody());
-                }
-                //login with existing user
-                if(request.getPathname().matches("/sessions")) {
-                    return this.getUserController().loginUser(request.getBody());
-                }
-                //create package
-                if(request.getPathname().matches("/packages")) {
-                    if(token == null || !token.equals("admin")) {
-                        return this.returnUnauthorizedResponse();
-                    } //only admin is allowed to create packages
-                    return this.getCardController().createPackage(request.getBody());
-                }
-                //buy package
-                if(request.getPathname().matches("/transactions/packages")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
-                    } //only logged-in users are allowed to buy packages
-                    return this.getCardController().openPackage(token);
-                }
-                //enter battle
-                if(request.getPathname().matches("/battles")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
-                    } //only logged-in users are allowed to enter a battle
-                    return this.getBattleController().startBattle(token);
-                }
+        //win, draw and loss rates of a deck against another deck, from simulated battles
+        router.addRoute(Method.POST, "/simulations", AuthRequirement.USER,
+                (request, match) -> getSimulationController().simulate(request.getUsername(), request.getBody()));
 
-            }
-            case GET: {
-                //retrieves user data for the given username
-                if(request.getPathname().matches("/users/.+")) {
-                    String username = request.getPathname().replace("/users/", "");
-                    if(token == null || (!token.equals(username) && !token.equals("admin"))) {
-                        return this.returnUnauthorizedResponse();
-                    }
-                    return this.getUserController().getUserByUsername(username);
-                }
-                //retrieves the stats for the user itself
-                if(request.getPathname().matches("/stats")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
-                    }
-                    return this.getUserController().getUserScoreboard(token);
-                }
-                //retrieves all users scoreboard ordered by the ELO
-                if(request.getPathname().matches("/scores")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
-                    }
-                    return this.getUserController().getAllScoreboards();
-                }
-                //shows user's card stack and deck
-                if(request.getPathname().matches("/cards")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
-                    }
-                    return this.getCardController().getUserCards(token);
-                }
-                //shows own user's deck
-                if(request.getPathname().matches("/decks")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
-                    }
-                    return this.getCardController().getUserDeck(token);
-                }
-                //unique feature shows other user's deck
-                if(request.getPathname().matches("/decks/.+")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
+        //create a tournament, {"Name", "MaxPlayers", "StartsAt"}
+        router.addRoute(Method.POST, "/tournaments", AuthRequirement.ADMIN,
+                (request, match) -> getTournamentController().createTournament(request.getBody()));
+        //all tournaments with their progress
+        router.addRoute(Method.GET, "/tournaments", AuthRequirement.USER,
+                (request, match) -> getTournamentController().getTournaments());
+        //progress of one tournament
+        router.addRoute(Method.GET, "/tournaments/{id:long}", AuthRequirement.USER,
+                (request, match) -> getTournamentController().getTournament(Long.parseLong(match.getParameter("id"))));
+        //all matches played so far, round by round
+        router.addRoute(Method.GET, "/tournaments/{id:long}/bracket", AuthRequirement.USER,
+                (request, match) -> getTournamentController().getBracket(Long.parseLong(match.getParameter("id"))));
+        //enter a tournament with the current deck
+        router.addRoute(Method.POST, "/tournaments/{id:long}/registrations", AuthRequirement.USER,
+                (request, match) -> getTournamentController().register(request.getUsername(), Long.parseLong(match.getParameter("id"))));
+        //start a tournament now
+        router.addRoute(Method.POST, "/tournaments/{id:long}/start", AuthRequirement.ADMIN,
+                (request, match) -> getTournamentController().startTournament(Long.parseLong(match.getParameter("id"))));
+
+        //retrieves user data for the given username
+        router.addRoute(Method.GET, "/users/{username}", AuthRequirement.SELF_OR_ADMIN,
+                (request, match) -> getUserController().getUserByUsername(match.getParameter("username")));
+        //retrieves the stats for the user itself
+        router.addRoute(Method.GET, "/stats", AuthRequirement.USER,
+                (request, match) -> getUserController().getUserScoreboard(request.getUsername()));
+        //retrieves all users scoreboard ordered by the ELO, a page of it with ?offset=&limit=
+        router.addRoute(Method.GET, "/scores", AuthRequirement.USER,
+                (request, match) -> {
+                    String offset = request.getQueryParameter("offset");
+                    String limit = request.getQueryParameter("limit");
+                    if (offset == null && limit == null) {
+                        return getUserController().getAllScoreboards(request.getIfNoneMatch());
                     }
-                    String username = request.getPathname().replace("/decks/", "");
-                    return this.getCardController().getUserDeck(username);
+                    return getUserController().getScoreboards(offset, limit, request.getIfNoneMatch());
+                });
+        //shows user's card stack and deck
+        router.addRoute(Method.GET, "/cards", AuthRequirement.USER,
+                (request, match) -> getCardController().getUserCards(request.getUsername()));
+        //shows own user's deck
+        router.addRoute(Method.GET, "/decks", AuthRequirement.USER,
+                (request, match) -> getCardController().getUserDeck(request.getUsername()));
+        //best decks out of the user's cards, ?limit= how many
+        router.addRoute(Method.GET, "/decks/suggest", AuthRequirement.USER,
+                (request, match) -> getSimulationController().suggestDecks(request.getUsername(), request.getQueryParameter("limit")));
+        //unique feature shows other user's deck
+        router.addRoute(Method.GET, "/decks/{username}", AuthRequirement.USER,
+                (request, match) -> getCardController().getUserDeck(match.getParameter("username")));
+
+        //updates user data for the given username
+        router.addRoute(Method.PUT, "/users/{username}", AuthRequirement.SELF_OR_ADMIN,
+                (request, match) -> getUserController().updateUser(match.getParameter("username"), request.getBody()));
+        //create user deck
+        router.addRoute(Method.PUT, "/decks", AuthRequirement.USER,
+                (request, match) -> getCardController().createDeck(request.getUsername(), request.getBody()));
+
+        //connection pool and cache statistics
+        router.addRoute(Method.GET, "/metrics", AuthRequirement.ADMIN,
+                (request, match) -> getMetricsController().getMetrics());
+
+        return router;
+    }
+
+    //blocking servers (one thread per connection) wait for asynchronous routes here
+    public Response handleRequest(Request request) {
+        return handleRequestAsync(request).join();
+    }
+
+    @Override
+    public CompletableFuture<Response> handleRequestAsync(Request request) {
+        //users loaded while handling this request are cached until the handler returns,
+        //work that completes later runs on other threads and does not see them
+        RequestContext.open();
+        try {
+            String token = request.getToken();
+            if(token != null) {
+                String username = authenticate(token);
+                if(username == null) {
+                    return CompletableFuture.completedFuture(this.returnUnauthorizedResponse());
                 }
+                request.setUsername(username);
             }
-            case PUT: {
-                //updates user data for the given username
-                if(request.getPathname().matches("/users/.+")) {
-                    String username = request.getPathname().replace("/users/", "");
-                    if(token == null || (!token.equals(username) && !token.equals("admin"))) {
-                        return this.returnUnauthorizedResponse();
-                    }
-                    return this.getUserController().updateUser(username, request.getBody());
-                }
-                //create user deck
-                if(request.getPathname().matches("/decks")) {
-                    if(token == null) {
-                        return this.returnUnauthorizedResponse();
-                    }
-                    return this.getCardController().createDeck(token, request.getBody());
-                }
+
+            RouteMatch match = getRouter().match(request.getMethod(), request.getPathname());
+            if(match == null) {
+                return CompletableFuture.completedFuture(new Response(HttpStatus.NOT_FOUND, ContentType.JSON, "{ \"error\": \"not found\", \"data\": null }"));
+            }
+
+            if(!match.getRoute().getAuthRequirement().allows(request.getUsername(), match)) {
+                return CompletableFuture.completedFuture(this.returnUnauthorizedResponse());
             }
+
+            return match.getRoute().handleAsync(request, match);
+        } finally {
+            RequestContext.close();
         }
+    }
+
+    //signed tokens are checked without touching the database,
+    //old username-mtcgToken tokens (only if auth.token.acceptLegacy is set) still need the user lookup
+    private String authenticate(String token) {
+        String username = getTokenService().verify(token);
+        if(username != null) {
+            return username;
+        }
+        username = getTokenService().legacyUsername(token);
+        if(username != null && getUserWithCardsRepository().validateToken(username)) {
+            return username;
+        }
+        return null;
+    }
+
+    //battles run on their own bounded pool, when its queue is full new battles are rejected instead of piling up
+    private static ExecutorService createBattleExecutor(int poolSize, int queueSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "battle-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-        return new Response(HttpStatus.NOT_FOUND, ContentType.JSON, "{ \"error\": \"not found\", \"data\": null }");
+    //tournament rounds start all their battles at once, when the queue is full the thread that starts a battle
+    //fights it itself, so a round of 2048 battles slows down instead of failing
+    private static ExecutorService createTournamentExecutor(int poolSize, int queueSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "tournament-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     private Response returnUnauthorizedResponse() {
@@ -3,80 +3,248 @@ package app.controllers;
 import app.daos.CardDao;
 import app.daos.UserDao;
 import app.models.Battle;
+import app.models.BattleLog;
+import app.models.BattleRecord;
+import app.models.Card;
 import app.models.UserWithCards;
+import app.repositories.BattleRepository;
 import app.repositories.CardRepository;
 import app.repositories.UserWithCardsRepository;
+import app.services.Matchmaker;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import http.ContentType;
 import http.HttpStatus;
 import lombok.Getter;
 import lombok.Setter;
 import server.Response;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Getter
 @Setter
 public class BattleController extends Controller{
 
-    public static final ArrayBlockingQueue<Battle> battleQueue = new ArrayBlockingQueue<>(2);
+    private static final String LOG_NONE = "none";
+    private static final String LOG_SUMMARY = "summary";
+    private static final String LOG_FULL = "full";
 
     private UserWithCardsRepository userWithCardsRepository;
     private CardRepository cardRepository;
     private UserDao userDao;
     private CardDao cardDao;
+    private BattleRepository battleRepository;
+    private Matchmaker matchmaker;
+    private Executor battleExecutor;
 
-    public BattleController(UserWithCardsRepository userWithCardsRepository, CardRepository cardRepository, CardDao cardDao, UserDao userDao) {
+    public BattleController(UserWithCardsRepository userWithCardsRepository, CardRepository cardRepository, CardDao cardDao, UserDao userDao, BattleRepository battleRepository, Matchmaker matchmaker, Executor battleExecutor) {
         setUserWithCardsRepository(userWithCardsRepository);
         setCardRepository(cardRepository);
         setCardDao(cardDao);
         setUserDao(userDao);
+        setBattleRepository(battleRepository);
+        setMatchmaker(matchmaker);
+        setBattleExecutor(battleExecutor);
     }
 
-    public Response startBattle(String username) {
-        try {
-            UserWithCards user = getUserWithCardsRepository().getUser(username);
+    //returns right away, the response completes once the battle is over (or no opponent was found in time).
+    //the battle and the database updates run on the battle executor, no request thread waits for the opponent
+    //logMode: full (default) returns the whole battle as text, summary and none only the result as JSON
+    public CompletableFuture<Response> startBattle(String username, String logMode) {
+        String mode = logMode == null ? LOG_FULL : logMode;
+        if(!isLogMode(mode)) {
+            return CompletableFuture.completedFuture(invalidLogMode());
+        }
+
+        UserWithCards user = getUserWithCardsRepository().getUserWithDeck(username);
+
+        if(user.getDeck().size() != 4) {
+            return CompletableFuture.completedFuture(new Response(
+                    HttpStatus.FORBIDDEN,
+                    ContentType.JSON,
+                    "{ \"error\": \"your deck needs to have exactly 4 cards to battle\", \"data\": null }"
+            ));
+        }
 
-            if(user.getDeck().size() != 4) {
+        Matchmaker.Ticket ticket = getMatchmaker().enqueue(user);
+        if(ticket == null) {
+            return CompletableFuture.completedFuture(new Response(
+                    HttpStatus.CONFLICT,
+                    ContentType.JSON,
+                    "{ \"error\": \"you are already waiting for a battle\", \"data\": null }"
+            ));
+        }
+
+        return ticket.getMatch().thenCompose(match -> {
+            if(match == null) { // matchmaking.timeout passed (or the ticket was cancelled)
+                return CompletableFuture.completedFuture(new Response(
+                        HttpStatus.REQUEST_TIMEOUT,
+                        ContentType.JSON,
+                        "{ \"error\": \"no opponent found\", \"data\": null }"
+                ));
+            }
+
+            Battle battle = match.getBattle();
+            if(match.getPlayer1() == ticket) { // player 1 starts the battle, player 2 only waits for the log
+                runBattle(match);
+            }
+
+            // runs on the battle thread right after the battle was settled
+            return battle.getBattleLogFuture().thenApply(battleLog -> renderBattleLog(battleLog, mode));
+        }).exceptionally(e -> {
+            if(e.getCause() instanceof RejectedExecutionException) {
                 return new Response(
-                        HttpStatus.FORBIDDEN,
+                        HttpStatus.SERVICE_UNAVAILABLE,
                         ContentType.JSON,
-                        "{ \"error\": \"your deck needs to have exactly 4 cards to battle\", \"data\": null }"
+                        "{ \"error\": \"too many battles, try again later\", \"data\": null }"
                 );
             }
+            e.printStackTrace();
+            return new Response(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    ContentType.JSON,
+                    "{ \"error\": \"internal server error\", \"data\": null }"
+            );
+        });
+    }
 
-            Battle battle = battleQueue.poll(); //load battle from battle queue (return null if queue is empty)
-            if(battle != null){ // there is already a battle in the queue
-                battle.setUser2(user); // we are the second user to enter the battle
-                battle.startBattle();
-            } else { // there is no battle in the queue
-                battle = new Battle(); // we need to create a new battle
-                battle.setUser1(user); // we are the first user to enter the battle
-                battleQueue.put(battle); // put the battle in the queue
-            }
+    // GET /battles/{id}
+    //battles are saved as seed and starting decks only, the log is played again from them
+    public Response getBattle(long battleId, String logMode) {
+        String mode = logMode == null ? LOG_FULL : logMode;
+        if(!isLogMode(mode)) {
+            return invalidLogMode();
+        }
+
+        BattleRecord record = getBattleRepository().getBattle(battleId);
+        if(record == null) {
+            return new Response(
+                    HttpStatus.NOT_FOUND,
+                    ContentType.JSON,
+                    "{ \"error\": \"battle not found\", \"data\": null }"
+            );
+        }
+
+        String[] cardIds = new String[record.getDeck1().length + record.getDeck2().length];
+        System.arraycopy(record.getDeck1(), 0, cardIds, 0, record.getDeck1().length);
+        System.arraycopy(record.getDeck2(), 0, cardIds, record.getDeck1().length, record.getDeck2().length);
+        HashMap<String, Card> cards = getCardDao().readByIds(cardIds);
+        if(cards == null || cards.size() != cardIds.length) {
+            return new Response(
+                    HttpStatus.NOT_FOUND,
+                    ContentType.JSON,
+                    "{ \"error\": \"the cards of this battle no longer exist\", \"data\": null }"
+            );
+        }
 
-            CompletableFuture<String> battleLog = battle.getBattleLogFuture(); // battleLog is a completable future so we can wait for it to complete
-            String battleLogString = battleLog.get(); // wait for the battle to complete
+        //fresh users with the starting decks, the replay changes nothing that is saved
+        Battle battle = new Battle();
+        battle.setSeed(record.getSeed());
+        battle.setUser1(replayUser(record.getUsername1(), record.getDeck1(), cards));
+        battle.setUser2(replayUser(record.getUsername2(), record.getDeck2(), cards));
+        battle.startBattle();
+        BattleLog battleLog = battle.getBattleLog();
+        battleLog.setId(record.getId());
+        if(battleLog.getWinner() != record.getWinner() || battleLog.getRounds() != record.getRounds()) {
+            //only possible if the battle rules changed since the battle was fought
+            System.err.println("battle " + battleId + " replayed with a different result");
+        }
 
-            //save user to database (cards, elo and wins/losses have changed)
-            getUserWithCardsRepository().updateUser(user);
+        return renderBattleLog(battleLog, mode);
+    }
 
+    private static UserWithCards replayUser(String username, String[] deck, HashMap<String, Card> cards) {
+        UserWithCards user = new UserWithCards();
+        user.setUsername(username);
+        user.setDeck(new ArrayList<>(deck.length));
+        user.setStack(new ArrayList<>());
+        for(String cardId : deck) {
+            user.getDeck().add(cards.get(cardId));
+        }
+        return user;
+    }
+
+    private static boolean isLogMode(String mode) {
+        return mode.equals(LOG_FULL) || mode.equals(LOG_SUMMARY) || mode.equals(LOG_NONE);
+    }
+
+    private static Response invalidLogMode() {
+        return new Response(
+                HttpStatus.BAD_REQUEST,
+                ContentType.JSON,
+                "{ \"error\": \"log must be none, summary or full\", \"data\": null }"
+        );
+    }
+
+    //the log is only turned into text or JSON here, in the form the player asked for.
+    //the JSON forms start with the battle id for GET /battles/{id}
+    private Response renderBattleLog(BattleLog battleLog, String mode) {
+        if(mode.equals(LOG_FULL)) {
             return new Response(
                     HttpStatus.OK,
                     ContentType.JSON,
-                    battleLogString
+                    battleLog.renderText()
             );
-
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+        }
+        try {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("Id", battleLog.getId());
+            summary.putAll(battleLog.summarize(mode.equals(LOG_SUMMARY)));
+            String summaryJSON = getObjectMapper().writeValueAsString(summary);
             return new Response(
-                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    HttpStatus.OK,
                     ContentType.JSON,
-                    "{ \"error\": \"internal server error\", \"data\": null }"
+                    "{ \"data\": " + summaryJSON + ", \"error\": null }"
             );
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //both players stay in the matchmaker until the battle is saved (or failed), then they may queue again
+    private void runBattle(Matchmaker.Match match) {
+        Battle battle = match.getBattle();
+        try {
+            getBattleExecutor().execute(() -> {
+                try {
+                    battle.startBattle();
+                    //saved for both players at once, before any of them gets the log
+                    BattleLog battleLog = battle.getBattleLog();
+                    battleLog.setId(getBattleRepository().settle(battle));
+                    getMatchmaker().finished(match);
+                    battle.getBattleLogFuture().complete(battleLog);
+                } catch (RuntimeException e) {
+                    getMatchmaker().finished(match);
+                    battle.getBattleLogFuture().completeExceptionally(e); // player 2 must not wait forever
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //both players get 503, nothing has changed yet
+            getMatchmaker().finished(match);
+            battle.getBattleLogFuture().completeExceptionally(e);
         }
+    }
 
+    // DELETE /battles, leaves the queue
+    public Response cancelBattle(String username) {
+        if(!getMatchmaker().cancel(username)) {
+            return new Response(
+                    HttpStatus.NOT_FOUND,
+                    ContentType.JSON,
+                    "{ \"error\": \"you are not waiting for a battle\", \"data\": null }"
+            );
+        }
+        return new Response(
+                HttpStatus.OK,
+                ContentType.JSON,
+                "{ \"data\": \"left the battle queue\", \"error\": null }"
+        );
     }
 
 }
@@ -3,6 +3,7 @@ package app.controllers;
 import app.daos.CardDao;
 import app.daos.UserDao;
 import app.models.Card;
+import app.models.PackagePurchase;
 import app.models.User;
 import app.models.UserWithCards;
 import app.repositories.CardRepository;
@@ -66,6 +67,17 @@ public class CardController extends Controller {
                 cardIds.add(card.getCardId());
             }
 
+            //battles classify a card by one element and one species keyword of its name
+            for (Card card : cards) {
+                if (!Card.isSupportedName(card.getName())) {
+                    return new Response(
+                            HttpStatus.BAD_REQUEST,
+                            ContentType.JSON,
+                            "{ \"error\": \"a card name can have only one element and one monster type\", \"data\": null }"
+                    );
+                }
+            }
+
             //create the package
             if (!cardRepository.createCards(cards)) { //returns false if a card already exists
                 return new Response(
@@ -96,9 +108,9 @@ public class CardController extends Controller {
     public Response openPackage(String username) {
 
         try {
-            UserWithCards user = getUserWithCardsRepository().getUser(username);
+            PackagePurchase purchase = getCardRepository().buyPackage(username);
 
-            if (user.getCoins() < 5) {
+            if (purchase.getStatus() == PackagePurchase.Status.NOT_ENOUGH_COINS) {
                 return new Response(
                         HttpStatus.FORBIDDEN,
                         ContentType.JSON,
@@ -106,8 +118,7 @@ public class CardController extends Controller {
                 );
             }
 
-            ArrayList<Card> newCards = getCardRepository().openPackage();
-            if (newCards == null) {
+            if (purchase.getStatus() == PackagePurchase.Status.NO_PACKAGE) {
                 return new Response(
                         HttpStatus.NOT_FOUND,
                         ContentType.JSON,
@@ -115,10 +126,15 @@ public class CardController extends Controller {
                 );
             }
 
-            user.getStack().addAll(newCards);
-            user.setCoins(user.getCoins() - 5);
+            if (purchase.getStatus() == PackagePurchase.Status.FAILED) {
+                return new Response(
+                        HttpStatus.INTERNAL_SERVER_ERROR,
+                        ContentType.JSON,
+                        "{ \"error\": \"error\", \"data\": null }"
+                );
+            }
 
-            getUserWithCardsRepository().updateUser(user);
+            ArrayList<Card> newCards = purchase.getCards();
 
             String openedPackageJSON = getObjectMapper().writeValueAsString(newCards);
 
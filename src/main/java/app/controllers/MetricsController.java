@@ -0,0 +1,56 @@
+package app.controllers;
+
+import app.models.User;
+import app.services.ConnectionPool;
+import app.services.Matchmaker;
+import app.services.TinyLfuCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import http.ContentType;
+import http.HttpStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import server.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Setter(AccessLevel.PRIVATE)
+@Getter(AccessLevel.PRIVATE)
+public class MetricsController extends Controller {
+    private ConnectionPool connectionPool;
+    private TinyLfuCache<String, User> userCache;
+    private Matchmaker matchmaker;
+
+    public MetricsController(ConnectionPool connectionPool, TinyLfuCache<String, User> userCache, Matchmaker matchmaker) {
+        setConnectionPool(connectionPool);
+        setUserCache(userCache);
+        setMatchmaker(matchmaker);
+    }
+
+    // GET /metrics
+    public Response getMetrics() {
+        try {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("ConnectionPool", getConnectionPool().getMetrics());
+            metrics.put("UserCache", getUserCache().getMetrics());
+            metrics.put("Matchmaking", getMatchmaker().getMetrics());
+
+            String metricsJSON = getObjectMapper().writeValueAsString(metrics);
+
+            return new Response(
+                    HttpStatus.OK,
+                    ContentType.JSON,
+                    "{ \"data\": " + metricsJSON + ", \"error\": null }"
+            );
+
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+            return new Response(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    ContentType.JSON,
+                    "{ \"error\": \"error\", \"data\": null }"
+            );
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package app.controllers;
+
+import app.daos.CardDao;
+import app.models.Card;
+import app.models.DeckSuggestion;
+import app.models.SimulationRequest;
+import app.models.SimulationResult;
+import app.models.UserWithCards;
+import app.repositories.UserWithCardsRepository;
+import app.services.BattleSimulator;
+import app.services.DeckSuggester;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import http.ContentType;
+import http.HttpStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import server.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Setter(AccessLevel.PRIVATE)
+@Getter(AccessLevel.PRIVATE)
+public class SimulationController extends Controller {
+    private static final int DEFAULT_BATTLES = 10000;
+    private static final int DEFAULT_SUGGESTIONS = 3;
+    private static final int MAX_SUGGESTIONS = 10;
+
+    private UserWithCardsRepository userWithCardsRepository;
+    private CardDao cardDao;
+    private BattleSimulator battleSimulator;
+    private DeckSuggester deckSuggester;
+    private int maxBattles;
+
+    public SimulationController(UserWithCardsRepository userWithCardsRepository, CardDao cardDao, BattleSimulator battleSimulator, DeckSuggester deckSuggester, int maxBattles) {
+        setUserWithCardsRepository(userWithCardsRepository);
+        setCardDao(cardDao);
+        setBattleSimulator(battleSimulator);
+        setDeckSuggester(deckSuggester);
+        setMaxBattles(maxBattles);
+    }
+
+    // POST /simulations
+    //estimates how often a deck beats another one, nothing is written to the database
+    public Response simulate(String username, String request) {
+        try {
+            SimulationRequest simulation = request == null || request.isBlank()
+                    ? new SimulationRequest()
+                    : getObjectMapper().readValue(request, SimulationRequest.class);
+
+            int battles = simulation.getBattles() == null ? DEFAULT_BATTLES : simulation.getBattles();
+            if (battles < 1 || battles > getMaxBattles()) {
+                return error(HttpStatus.BAD_REQUEST, "Battles must be between 1 and " + getMaxBattles());
+            }
+
+            List<Card> deck = simulation.getDeck();
+            if (deck == null) {
+                deck = getUserWithCardsRepository().getUserWithDeck(username).getDeck();
+            }
+
+            List<Card> opponentDeck = simulation.getOpponentDeck();
+            if (opponentDeck == null) {
+                if (simulation.getOpponent() == null) {
+                    return error(HttpStatus.BAD_REQUEST, "either Opponent or OpponentDeck is required");
+                }
+                UserWithCards opponent = getUserWithCardsRepository().getUserWithDeck(simulation.getOpponent());
+                if (opponent == null) {
+                    return error(HttpStatus.NOT_FOUND, "user not found");
+                }
+                opponentDeck = opponent.getDeck();
+            }
+
+            if (!isValidDeck(deck)) {
+                return error(HttpStatus.BAD_REQUEST, "the deck needs to have exactly 4 cards with a name");
+            }
+            if (!isValidDeck(opponentDeck)) {
+                return error(HttpStatus.BAD_REQUEST, "the opponent's deck needs to have exactly 4 cards with a name");
+            }
+            //cards of the body are checked like new cards in createPackage, saved cards were checked when they were created
+            if (!hasSupportedNames(simulation.getDeck()) || !hasSupportedNames(simulation.getOpponentDeck())) {
+                return error(HttpStatus.BAD_REQUEST, "a card name can have only one element and one monster type");
+            }
+
+            long seed = simulation.getSeed() == null ? ThreadLocalRandom.current().nextLong() : simulation.getSeed();
+            SimulationResult result = getBattleSimulator().simulate(deck, opponentDeck, battles, seed);
+
+            String resultJSON = getObjectMapper().writeValueAsString(result);
+            return new Response(
+                    HttpStatus.OK,
+                    ContentType.JSON,
+                    "{ \"data\": " + resultJSON + ", \"error\": null }"
+            );
+
+        } catch (JsonProcessingException e) {
+            return error(HttpStatus.BAD_REQUEST, "invalid simulation");
+        }
+    }
+
+    // GET /decks/suggest
+    //the best decks out of all the user's cards against the decks of random other players, ?limit= decks (default 3)
+    public Response suggestDecks(String username, String limitParameter) {
+        try {
+            int limit = limitParameter == null ? DEFAULT_SUGGESTIONS : Integer.parseInt(limitParameter);
+            if (limit < 1 || limit > MAX_SUGGESTIONS) {
+                return error(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_SUGGESTIONS);
+            }
+
+            UserWithCards user = getUserWithCardsRepository().getUser(username);
+            List<Card> cards = new ArrayList<>(user.getStack());
+            cards.addAll(user.getDeck());
+            if (cards.size() < 4) {
+                return error(HttpStatus.NOT_FOUND, "you need at least 4 cards for a deck");
+            }
+
+            ArrayList<ArrayList<Card>> opponentDecks = getCardDao().readSampleDecks(username, getDeckSuggester().getOpponentSample());
+            if (opponentDecks == null) {
+                return error(HttpStatus.INTERNAL_SERVER_ERROR, "error");
+            }
+            if (opponentDecks.isEmpty()) {
+                return error(HttpStatus.NOT_FOUND, "no other player has a deck to compare against");
+            }
+
+            DeckSuggestion suggestion = getDeckSuggester().suggest(cards, opponentDecks, limit, ThreadLocalRandom.current().nextLong());
+
+            String suggestionJSON = getObjectMapper().writeValueAsString(suggestion);
+            return new Response(
+                    HttpStatus.OK,
+                    ContentType.JSON,
+                    "{ \"data\": " + suggestionJSON + ", \"error\": null }"
+            );
+
+        } catch (NumberFormatException e) {
+            return error(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_SUGGESTIONS);
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "error");
+        }
+    }
+
+    private static boolean isValidDeck(List<Card> deck) {
+        if (deck.size() != 4) {
+            return false;
+        }
+        for (Card card : deck) {
+            if (card == null || card.getName() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //null if the deck is not part of the request
+    private static boolean hasSupportedNames(List<Card> deck) {
+        if (deck == null) {
+            return true;
+        }
+        for (Card card : deck) {
+            if (!Card.isSupportedName(card.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Response error(HttpStatus status, String error) {
+        return new Response(
+                status,
+                ContentType.JSON,
+                "{ \"error\": \"" + error + "\", \"data\": null }"
+        );
+    }
+}
@@ -0,0 +1,148 @@
+package app.controllers;
+
+import app.models.Tournament;
+import app.models.TournamentRequest;
+import app.models.UserWithCards;
+import app.repositories.UserWithCardsRepository;
+import app.services.TournamentEngine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import http.ContentType;
+import http.HttpStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import server.Response;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Setter(AccessLevel.PRIVATE)
+@Getter(AccessLevel.PRIVATE)
+public class TournamentController extends Controller {
+    private static final int DEFAULT_MAX_PLAYERS = 64;
+
+    private UserWithCardsRepository userWithCardsRepository;
+    private TournamentEngine tournamentEngine;
+
+    public TournamentController(UserWithCardsRepository userWithCardsRepository, TournamentEngine tournamentEngine) {
+        setUserWithCardsRepository(userWithCardsRepository);
+        setTournamentEngine(tournamentEngine);
+    }
+
+    // POST /tournaments
+    public Response createTournament(String request) {
+        try {
+            TournamentRequest tournamentRequest = getObjectMapper().readValue(request, TournamentRequest.class);
+            if (tournamentRequest.getName() == null || tournamentRequest.getName().isBlank()) {
+                return error(HttpStatus.BAD_REQUEST, "Name is required");
+            }
+            int maxPlayers = tournamentRequest.getMaxPlayers() == null ? DEFAULT_MAX_PLAYERS : tournamentRequest.getMaxPlayers();
+            if (maxPlayers < TournamentEngine.MIN_PLAYERS || maxPlayers > TournamentEngine.MAX_PLAYERS) {
+                return error(HttpStatus.BAD_REQUEST, "MaxPlayers must be between " + TournamentEngine.MIN_PLAYERS + " and " + TournamentEngine.MAX_PLAYERS);
+            }
+            Instant startsAt = tournamentRequest.getStartsAt() == null ? null : Instant.parse(tournamentRequest.getStartsAt());
+
+            Tournament tournament = getTournamentEngine().create(tournamentRequest.getName(), maxPlayers, startsAt);
+            return data(HttpStatus.CREATED, tournament.summarize());
+
+        } catch (DateTimeParseException e) {
+            return error(HttpStatus.BAD_REQUEST, "StartsAt must be a time like 2026-01-01T18:00:00Z");
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "invalid tournament");
+        }
+    }
+
+    // GET /tournaments
+    public Response getTournaments() {
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (Tournament tournament : getTournamentEngine().getAll()) {
+            summaries.add(tournament.summarize());
+        }
+        return data(HttpStatus.OK, summaries);
+    }
+
+    // GET /tournaments/{id}
+    //progress and bracket are served from the tournament in memory
+    public Response getTournament(long tournamentId) {
+        Tournament tournament = getTournamentEngine().get(tournamentId);
+        if (tournament == null) {
+            return tournamentNotFound();
+        }
+        return data(HttpStatus.OK, tournament.summarize());
+    }
+
+    // GET /tournaments/{id}/bracket
+    public Response getBracket(long tournamentId) {
+        Tournament tournament = getTournamentEngine().get(tournamentId);
+        if (tournament == null) {
+            return tournamentNotFound();
+        }
+        return data(HttpStatus.OK, tournament.bracket());
+    }
+
+    // POST /tournaments/{id}/registrations
+    public Response register(String username, long tournamentId) {
+        Tournament tournament = getTournamentEngine().get(tournamentId);
+        if (tournament == null) {
+            return tournamentNotFound();
+        }
+
+        UserWithCards user = getUserWithCardsRepository().getUserWithDeck(username);
+        if (user.getDeck().size() != 4) {
+            return error(HttpStatus.FORBIDDEN, "your deck needs to have exactly 4 cards to enter a tournament");
+        }
+
+        Tournament.Registration registration = getTournamentEngine().register(tournament, user);
+        if (registration == Tournament.Registration.CLOSED) {
+            return error(HttpStatus.CONFLICT, "the registration of this tournament is closed");
+        }
+        if (registration == Tournament.Registration.FULL) {
+            return error(HttpStatus.CONFLICT, "the tournament is full");
+        }
+        if (registration == Tournament.Registration.ALREADY_REGISTERED) {
+            return error(HttpStatus.CONFLICT, "you are already registered for this tournament");
+        }
+        return data(HttpStatus.CREATED, tournament.summarize());
+    }
+
+    // POST /tournaments/{id}/start
+    //starts a tournament before its StartsAt (or one without), the response does not wait for the battles
+    public Response startTournament(long tournamentId) {
+        Tournament tournament = getTournamentEngine().get(tournamentId);
+        if (tournament == null) {
+            return tournamentNotFound();
+        }
+        if (getTournamentEngine().start(tournament) == null) {
+            return error(HttpStatus.CONFLICT, "the tournament has already started");
+        }
+        return data(HttpStatus.OK, tournament.summarize());
+    }
+
+    private Response data(HttpStatus status, Object data) {
+        try {
+            return new Response(
+                    status,
+                    ContentType.JSON,
+                    "{ \"data\": " + getObjectMapper().writeValueAsString(data) + ", \"error\": null }"
+            );
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "error");
+        }
+    }
+
+    private static Response tournamentNotFound() {
+        return error(HttpStatus.NOT_FOUND, "tournament not found");
+    }
+
+    private static Response error(HttpStatus status, String error) {
+        return new Response(
+                status,
+                ContentType.JSON,
+                "{ \"error\": \"" + error + "\", \"data\": null }"
+        );
+    }
+}
@@ -6,17 +6,23 @@ import app.models.User;
 import app.models.UserScoreboard;
 import app.models.UserWithCards;
 import app.repositories.UserWithCardsRepository;
+import app.services.ScoreboardCache;
+import app.services.TokenService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import http.ContentType;
 import http.HttpStatus;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import server.Request;
 import server.Response;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.function.Supplier;
 
 @Setter(AccessLevel.PRIVATE)
 @Getter(AccessLevel.PRIVATE)
@@ -25,11 +31,14 @@ public class UserController extends Controller {
     private UserWithCardsRepository userWithCardsRepository;
     private UserDao userDao;
     private CardDao cardDao;
+    private TokenService tokenService;
+    private ScoreboardCache scoreboardCache = new ScoreboardCache();
 
-    public UserController(UserWithCardsRepository userWithCardsRepository, CardDao cardDao, UserDao userDao) {
+    public UserController(UserWithCardsRepository userWithCardsRepository, CardDao cardDao, UserDao userDao, TokenService tokenService) {
         setUserWithCardsRepository(userWithCardsRepository);
         setCardDao(cardDao);
         setUserDao(userDao);
+        setTokenService(tokenService);
     }
 
     // GET /users/username
@@ -136,6 +145,14 @@ public class UserController extends Controller {
                     ContentType.JSON,
                     "{ \"error\": \"duplicate username is not allowed\", \"data\": null }"
             );
+        } catch (IllegalStateException e) {
+            //the user was not created, e.g. no database connection in time
+            e.printStackTrace();
+            return new Response(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    ContentType.JSON,
+                    "{ \"error\": \"internal server error\", \"data\": null }"
+            );
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
@@ -172,18 +189,55 @@ public class UserController extends Controller {
     }
 
     public Response getAllScoreboards() {
-        try {
-            ArrayList<UserScoreboard> allScoreboards = getUserWithCardsRepository().getAllScoreboards();
+        return getAllScoreboards(null);
+    }
+
+    public Response getAllScoreboards(String ifNoneMatch) {
+        return getCachedScoreboards(0, Integer.MAX_VALUE, ifNoneMatch,
+                () -> getUserWithCardsRepository().getAllScoreboards());
+    }
 
-            String scoreboardsJSON = getObjectMapper().writeValueAsString(allScoreboards);
+    // GET /scores?offset=&limit=
+    public Response getScoreboards(String offset, String limit, String ifNoneMatch) {
+        int offsetValue;
+        int limitValue;
+        try {
+            offsetValue = offset == null ? 0 : Integer.parseInt(offset);
+            limitValue = limit == null ? Integer.MAX_VALUE : Integer.parseInt(limit);
+        } catch (NumberFormatException e) {
+            offsetValue = -1;
+            limitValue = -1;
+        }
 
+        if (offsetValue < 0 || limitValue < 1) {
             return new Response(
-                    HttpStatus.OK,
+                    HttpStatus.BAD_REQUEST,
                     ContentType.JSON,
-                    "{ \"data\": " + scoreboardsJSON + ", \"error\": null }"
+                    "{ \"error\": \"offset must be 0 or more and limit 1 or more\", \"data\": null }"
             );
+        }
 
-        } catch (JsonProcessingException e) {
+        int pageOffset = offsetValue;
+        int pageLimit = limitValue;
+        return getCachedScoreboards(pageOffset, pageLimit, ifNoneMatch,
+                () -> getUserWithCardsRepository().getScoreboards(pageOffset, pageLimit));
+    }
+
+    //the page is only serialized again after the leaderboard changed, otherwise all requests share the rendered bytes.
+    //a client that still has the current page (If-None-Match) gets 304 without a body
+    private Response getCachedScoreboards(int offset, int limit, String ifNoneMatch, Supplier<ArrayList<UserScoreboard>> scoreboards) {
+        try {
+            long version = getUserWithCardsRepository().getLeaderboardVersion();
+            ScoreboardCache.Page page = getScoreboardCache().getPage(version, offset, limit, () ->
+                    ("{ \"data\": " + getObjectMapper().writeValueAsString(scoreboards.get()) + ", \"error\": null }")
+                            .getBytes(StandardCharsets.UTF_8));
+
+            if (Request.etagMatches(ifNoneMatch, page.getEtag())) {
+                return new Response(HttpStatus.NOT_MODIFIED, ContentType.JSON, new byte[0], page.getEtag());
+            }
+            return new Response(HttpStatus.OK, ContentType.JSON, page.getContent(), page.getEtag());
+
+        } catch (IOException e) {
             e.printStackTrace();
             return new Response(
                     HttpStatus.INTERNAL_SERVER_ERROR,
@@ -218,7 +272,7 @@ public class UserController extends Controller {
                 return new Response(
                         HttpStatus.OK,
                         ContentType.JSON,
-                        "{ \"data\": \"" + user.getUsername() + "-mtcgToken\", \"error\": null }"
+                        "{ \"data\": \"" + getTokenService().issue(user.getUsername()) + "\", \"error\": null }"
                 );
             }
 
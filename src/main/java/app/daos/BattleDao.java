@@ -0,0 +1,94 @@
+package app.daos;
+
+import app.models.BattleLog;
+import app.models.BattleRecord;
+import app.services.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+public class BattleDao {
+
+    private final ConnectionPool connectionPool;
+
+    public BattleDao(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO battles (seed, username1, username2, deck1, deck2, winner, elo_change1, elo_change2, rounds) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    //part of the settlement transaction, returns the id of the new battle
+    public long create(Connection connection, BattleLog battleLog) throws SQLException {
+        try (var stmt = connection.prepareStatement(INSERT_SQL + " RETURNING battle_id;")) {
+            setParameters(stmt, connection, battleLog);
+            var result = stmt.executeQuery();
+            result.next();
+            return result.getLong("battle_id");
+        }
+    }
+
+    //all battles of a tournament round as one batch, returns their ids in the order of the logs
+    public long[] createAll(Connection connection, List<BattleLog> battleLogs) throws SQLException {
+        try (var stmt = connection.prepareStatement(INSERT_SQL, new String[]{"battle_id"})) {
+            for (BattleLog battleLog : battleLogs) {
+                setParameters(stmt, connection, battleLog);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            var keys = stmt.getGeneratedKeys();
+            long[] battleIds = new long[battleLogs.size()];
+            int count = 0;
+            while (keys.next()) {
+                if (count == battleIds.length) {
+                    throw new SQLException("more battle ids than battles");
+                }
+                battleIds[count++] = keys.getLong(1);
+            }
+            //the round must not be saved with battles the bracket cannot point to
+            if (count != battleIds.length) {
+                throw new SQLException(count + " battle ids for " + battleIds.length + " battles");
+            }
+            return battleIds;
+        }
+    }
+
+    public BattleRecord read(long battleId) {
+        String sql = "SELECT * FROM battles WHERE battle_id = ?;";
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, battleId);
+            var result = stmt.executeQuery();
+            if (result.next()) {
+                return new BattleRecord(
+                        result.getLong("battle_id"),
+                        result.getLong("seed"),
+                        result.getString("username1"),
+                        result.getString("username2"),
+                        (String[]) result.getArray("deck1").getArray(),
+                        (String[]) result.getArray("deck2").getArray(),
+                        result.getShort("winner"),
+                        result.getShort("elo_change1"),
+                        result.getShort("elo_change2"),
+                        result.getShort("rounds")
+                );
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static void setParameters(PreparedStatement stmt, Connection connection, BattleLog battleLog) throws SQLException {
+        stmt.setLong(1, battleLog.getSeed());
+        stmt.setString(2, battleLog.getUsername1());
+        stmt.setString(3, battleLog.getUsername2());
+        stmt.setArray(4, connection.createArrayOf("text", battleLog.getDeck1()));
+        stmt.setArray(5, connection.createArrayOf("text", battleLog.getDeck2()));
+        stmt.setShort(6, (short) battleLog.getWinner());
+        stmt.setShort(7, (short) battleLog.getEloChange1());
+        stmt.setShort(8, (short) battleLog.getEloChange2());
+        stmt.setShort(9, (short) battleLog.getRounds());
+    }
+}
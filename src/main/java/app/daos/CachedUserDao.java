@@ -0,0 +1,118 @@
+package app.daos;
+
+import app.models.User;
+import app.services.ConnectionPool;
+import app.services.TinyLfuCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+//UserDao with a TinyLfuCache in front of read, writes invalidate the user before and after the database write and the
+//next read loads the new row. a written row is never put into the cache, two writes can return in another order
+//than they were committed. callers get copies, so changing a returned user never changes the cached one
+public class CachedUserDao extends UserDao {
+
+    private final TinyLfuCache<String, User> cache;
+
+    public CachedUserDao(ConnectionPool connectionPool, TinyLfuCache<String, User> cache) {
+        super(connectionPool);
+        this.cache = cache;
+    }
+
+    @Override
+    public User read(String username) {
+        User user = cache.get(username);
+        if (user != null) {
+            return copy(user);
+        }
+
+        //only cached if this user was not written while it was read, so a row read before a concurrent write
+        //can never overwrite the newer one. writes to other users do not matter
+        long version = cache.version(username);
+        user = super.read(username);
+        if (user != null) {
+            cache.putIfVersion(username, copy(user), version);
+        }
+        return user;
+    }
+
+    @Override
+    public User create(User user) throws IllegalAccessException {
+        //the row gets default coins and elo, the next read loads it.
+        //invalidated again afterwards, a read that started before the insert must not cache its result
+        cache.invalidate(user.getUsername());
+        try {
+            return super.create(user);
+        } finally {
+            cache.invalidate(user.getUsername());
+        }
+    }
+
+    @Override
+    public User update(User user) {
+        cache.invalidate(user.getUsername());
+        try {
+            return super.update(user);
+        } finally {
+            cache.invalidate(user.getUsername());
+        }
+    }
+
+    //part of a transaction, committed invalidates again once the new row is visible
+    @Override
+    public User update(Connection connection, User user) throws SQLException {
+        cache.invalidate(user.getUsername());
+        return super.update(connection, user);
+    }
+
+    //part of a transaction, committed invalidates again once the new row is visible
+    @Override
+    public ArrayList<User> addBattleResults(Connection connection, String[] usernames, int[] eloChanges, int[] battlesWon, int[] battlesLost) throws SQLException {
+        for (String username : usernames) {
+            cache.invalidate(username);
+        }
+        return super.addBattleResults(connection, usernames, eloChanges, battlesWon, battlesLost);
+    }
+
+    //part of a transaction, committed invalidates again once the new row is visible
+    @Override
+    public User spendCoins(Connection connection, String username, int coins) throws SQLException {
+        cache.invalidate(username);
+        return super.spendCoins(connection, username, coins);
+    }
+
+    //a row read between the statement and the commit may have been cached
+    @Override
+    public void committed(User user) {
+        cache.invalidate(user.getUsername());
+    }
+
+    @Override
+    public void delete(User user) {
+        cache.invalidate(user.getUsername());
+        try {
+            super.delete(user);
+        } finally {
+            cache.invalidate(user.getUsername());
+        }
+    }
+
+    public TinyLfuCache<String, User> getCache() {
+        return cache;
+    }
+
+    private User copy(User user) {
+        return new User(
+                user.getUsername(),
+                user.getPassword(),
+                user.getDisplayName(),
+                user.getBio(),
+                user.getImage(),
+                user.getCoins(),
+                user.getElo(),
+                user.getBattlesWon(),
+                user.getBattlesLost()
+        );
+    }
+}
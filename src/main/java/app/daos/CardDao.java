@@ -1,22 +1,26 @@
 package app.daos;
 
 import app.models.Card;
+import app.services.ConnectionPool;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 
 public class CardDao {
 
-    private final Connection connection;
+    private final ConnectionPool connectionPool;
 
-    public CardDao(Connection connection) {
-        this.connection = connection;
+    public CardDao(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     public void create(Card card) {
         String sql = "INSERT INTO cards (card_id, name, damage, card_owner_username, is_in_deck) VALUES (?, ?, ?, ?, ?)";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, card.getCardId());
             stmt.setString(2, card.getName());
             stmt.setFloat(3, card.getDamage());
@@ -30,7 +34,7 @@ public class CardDao {
 
     public Card read(String cardId) {
         String sql = "SELECT * FROM cards WHERE card_id = ?;";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, cardId);
             var result = stmt.executeQuery();
             if (result.next()) {
@@ -51,7 +55,7 @@ public class CardDao {
     public LinkedHashMap<String, Card> readAll() {
         LinkedHashMap<String, Card> allCards = new LinkedHashMap<>();
         String sql = "SELECT * FROM cards ORDER BY timestamp ASC;";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             ResultSet allCardsResults = stmt.executeQuery();
             while (allCardsResults.next()) {
                 Card card = new Card(
@@ -70,9 +74,73 @@ public class CardDao {
         return null;
     }
 
+    //uses the cards_owner_deck_idx index instead of reading the whole table
+    public ArrayList<Card> readByOwner(String username) {
+        String sql = "SELECT * FROM cards WHERE card_owner_username = ? ORDER BY timestamp ASC;";
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            return readCards(stmt.executeQuery());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    public ArrayList<Card> readDeckByOwner(String username) {
+        String sql = "SELECT * FROM cards WHERE card_owner_username = ? AND is_in_deck = true ORDER BY timestamp ASC;";
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            return readCards(stmt.executeQuery());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    //card id -> card for all given ids that exist
+    public HashMap<String, Card> readByIds(String[] cardIds) {
+        String sql = "SELECT * FROM cards WHERE card_id = ANY(?);";
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, connection.createArrayOf("text", cardIds));
+            HashMap<String, Card> cards = new HashMap<>();
+            for (Card card : readCards(stmt.executeQuery())) {
+                cards.put(card.getCardId(), card);
+            }
+            return cards;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    //full decks (exactly 4 cards) of up to limit random other users, one list per user
+    public ArrayList<ArrayList<Card>> readSampleDecks(String excludedUsername, int limit) {
+        String sql = "SELECT * FROM cards WHERE is_in_deck = true AND card_owner_username IN (" +
+                "SELECT card_owner_username FROM cards WHERE is_in_deck = true AND card_owner_username <> ? " +
+                "GROUP BY card_owner_username HAVING count(*) = 4 ORDER BY random() LIMIT ?" +
+                ") ORDER BY card_owner_username, timestamp ASC;";
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, excludedUsername);
+            stmt.setInt(2, limit);
+            ArrayList<ArrayList<Card>> decks = new ArrayList<>();
+            ArrayList<Card> deck = null;
+            for (Card card : readCards(stmt.executeQuery())) {
+                if (deck == null || !deck.get(0).getCardOwnerUsername().equals(card.getCardOwnerUsername())) {
+                    deck = new ArrayList<>(4);
+                    decks.add(deck);
+                }
+                deck.add(card);
+            }
+            return decks;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     public void update(Card card) {
         String sql = "UPDATE cards SET name = ?, damage = ?, card_owner_username = ?, is_in_deck = ? WHERE card_id = ?;";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, card.getName());
             stmt.setFloat(2, card.getDamage());
             stmt.setString(3, card.getCardOwnerUsername());
@@ -84,13 +152,66 @@ public class CardDao {
         }
     }
 
+    //moves all given cards to the owner (deck or stack) with one statement, no matter how many cards there are.
+    //only cards without owner (bought) or of this owner are written, a card lost in a battle that was settled
+    //after the user was read stays with the winner
+    public void updateOwner(Connection connection, String username, boolean isInDeck, String[] cardIds) throws SQLException {
+        if (cardIds.length == 0) {
+            return;
+        }
+        String sql = "UPDATE cards SET card_owner_username = ?, is_in_deck = ? " +
+                "WHERE card_id = ANY(?) AND (card_owner_username IS NULL OR card_owner_username = ?);";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            stmt.setBoolean(2, isInDeck);
+            stmt.setArray(3, connection.createArrayOf("text", cardIds));
+            stmt.setString(4, username);
+            stmt.executeUpdate();
+        }
+    }
+
+    //gives every card to its new owner's deck with one statement, the arrays are parallel (card id, previous owner,
+    //new owner). throws if a card no longer belongs to its previous owner, the caller rolls back
+    public void transferToDecks(Connection connection, String[] cardIds, String[] previousOwners, String[] newOwners) throws SQLException {
+        if (cardIds.length == 0) {
+            return;
+        }
+        String sql = "UPDATE cards c SET card_owner_username = t.owner, is_in_deck = true " +
+                "FROM unnest(?::text[], ?::text[], ?::text[]) AS t(card_id, previous_owner, owner) " +
+                "WHERE c.card_id = t.card_id AND c.card_owner_username = t.previous_owner;";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, connection.createArrayOf("text", cardIds));
+            stmt.setArray(2, connection.createArrayOf("text", previousOwners));
+            stmt.setArray(3, connection.createArrayOf("text", newOwners));
+            int updated = stmt.executeUpdate();
+            if (updated != cardIds.length) {
+                //a card was traded, sold or moved by another battle while this one was fought
+                throw new SQLException(updated + " of " + cardIds.length + " cards still belonged to their previous owner");
+            }
+        }
+    }
+
     public void delete(Card card) {
         String sql = "DELETE FROM cards WHERE card_id = ?;";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, card.getCardId());
             stmt.executeUpdate();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    private ArrayList<Card> readCards(ResultSet result) throws SQLException {
+        ArrayList<Card> cards = new ArrayList<>();
+        while (result.next()) {
+            cards.add(new Card(
+                    result.getString("card_id"),
+                    result.getString("name"),
+                    result.getFloat("damage"),
+                    result.getString("card_owner_username"),
+                    result.getBoolean("is_in_deck")
+            ));
+        }
+        return cards;
+    }
 }
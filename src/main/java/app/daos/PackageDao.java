@@ -0,0 +1,94 @@
+package app.daos;
+
+import app.models.Card;
+import app.services.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+public class PackageDao {
+
+    private final ConnectionPool connectionPool;
+
+    public PackageDao(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    //inserts the cards and the package in one transaction, returns false if a card already exists
+    public boolean create(ArrayList<Card> cards) {
+        String cardSql = "INSERT INTO cards (card_id, name, damage, card_owner_username, is_in_deck) VALUES (?, ?, ?, ?, ?)";
+        String packageSql = "INSERT INTO packages (card_ids) VALUES (?)";
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
+            try (var cardStmt = connection.prepareStatement(cardSql); var packageStmt = connection.prepareStatement(packageSql)) {
+                String[] cardIds = new String[cards.size()];
+                for (int i = 0; i < cards.size(); i++) {
+                    Card card = cards.get(i);
+                    cardStmt.setString(1, card.getCardId());
+                    cardStmt.setString(2, card.getName());
+                    cardStmt.setFloat(3, card.getDamage());
+                    cardStmt.setString(4, null); //cards in a package have no owner
+                    cardStmt.setBoolean(5, false);
+                    cardStmt.addBatch();
+                    cardIds[i] = card.getCardId();
+                }
+                cardStmt.executeBatch();
+
+                packageStmt.setArray(1, connection.createArrayOf("text", cardIds));
+                packageStmt.executeUpdate();
+
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                //23505 is unique_violation, one of the card ids is already taken
+                if (!"23505".equals(e.getSQLState()) && !isUniqueViolation(e.getNextException())) {
+                    e.printStackTrace();
+                }
+                return false;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    //claims the oldest package that no other transaction is opening right now and returns its cards in package order,
+    //null if there is none. the claim is a single statement so two buyers never get the same package and never wait
+    //for each other, it is part of the buyer's transaction and the package comes back if that is rolled back
+    public ArrayList<Card> claimNext(Connection connection) throws SQLException {
+        String sql = """
+                WITH opened AS (
+                    DELETE FROM packages
+                    WHERE package_id = (SELECT package_id FROM packages ORDER BY package_id LIMIT 1 FOR UPDATE SKIP LOCKED)
+                    RETURNING card_ids
+                )
+                SELECT c.* FROM opened
+                CROSS JOIN LATERAL unnest(opened.card_ids) WITH ORDINALITY AS p(card_id, position)
+                JOIN cards c ON c.card_id = p.card_id
+                ORDER BY p.position;""";
+        try (var stmt = connection.prepareStatement(sql)) {
+            var result = stmt.executeQuery();
+            ArrayList<Card> cards = new ArrayList<>();
+            while (result.next()) {
+                cards.add(new Card(
+                        result.getString("card_id"),
+                        result.getString("name"),
+                        result.getFloat("damage"),
+                        result.getString("card_owner_username"),
+                        result.getBoolean("is_in_deck")
+                ));
+            }
+            //no package left
+            if (cards.isEmpty()) {
+                return null;
+            }
+            return cards;
+        }
+    }
+
+    private boolean isUniqueViolation(SQLException e) {
+        return e != null && "23505".equals(e.getSQLState());
+    }
+}
@@ -1,22 +1,26 @@
 package app.daos;
 
 import app.models.User;
+import app.services.ConnectionPool;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 
 public class UserDao {
 
-    private final Connection connection;
+    private final ConnectionPool connectionPool;
 
-    public UserDao(Connection connection) {
-        this.connection = connection;
+    public UserDao(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
-    public void create(User user) throws IllegalAccessException {
-        String sql = "INSERT INTO users (username, password, display_name, bio, image, coins, elo, battles_won, battles_lost) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (var stmt = connection.prepareStatement(sql)) {
+    //returns the inserted row. throws IllegalAccessException for a duplicate username and IllegalStateException if
+    //the user could not be inserted for another reason (e.g. no pooled connection in time)
+    public User create(User user) throws IllegalAccessException {
+        String sql = "INSERT INTO users (username, password, display_name, bio, image, coins, elo, battles_won, battles_lost) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING *";
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, user.getUsername());
             stmt.setString(2, user.getPassword());
             stmt.setString(3, user.getDisplayName());
@@ -27,17 +31,23 @@ public class UserDao {
             stmt.setInt(8, 0); //initial battles won are 0
             stmt.setInt(9, 0); //initial battles lost are 0
 
-            stmt.executeUpdate();
+            var result = stmt.executeQuery();
+            if (!result.next()) {
+                throw new IllegalStateException("user could not be created");
+            }
+            return readUser(result);
         } catch (SQLException e){
-            throw new IllegalAccessException("Username already exists");
-        } catch (Exception e) {
-            e.printStackTrace();
+            //23505 is unique_violation, anything else is not a duplicate
+            if ("23505".equals(e.getSQLState())) {
+                throw new IllegalAccessException("Username already exists");
+            }
+            throw new IllegalStateException("user could not be created", e);
         }
     }
 
     public User read(String username) {
         String sql = "SELECT * FROM users WHERE username = ?;";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, username);
             var result = stmt.executeQuery();
             if (result.next()) {
@@ -61,7 +71,7 @@ public class UserDao {
 
     public ArrayList<User> readAll() {
         String sql = "SELECT * FROM users;";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             var result = stmt.executeQuery();
             ArrayList<User> users = new ArrayList<>();
             while (result.next()) {
@@ -84,28 +94,96 @@ public class UserDao {
         return null;
     }
 
-    public void update(User user) {
-        String sql = "UPDATE users SET password = ?, display_name = ?, bio = ?, image = ?, coins = ?, elo = ?, battles_won = ?, battles_lost = ? WHERE username = ?;";
+    //returns the user as saved, null if the user does not exist or the update failed
+    public User update(User user) {
+        try (Connection connection = connectionPool.getConnection()) {
+            return update(connection, user);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    //runs on the given connection so it can be part of a bigger transaction.
+    //elo and battle counters are only changed by addBattleResults, so saving a profile or coins never overwrites
+    //the result of a battle that was settled after the user was read. returns the row as it is now
+    public User update(Connection connection, User user) throws SQLException {
+        String sql = "UPDATE users SET password = ?, display_name = ?, bio = ?, image = ?, coins = ? WHERE username = ? RETURNING *;";
         try (var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, user.getPassword());
             stmt.setString(2, user.getDisplayName());
             stmt.setString(3, user.getBio());
             stmt.setString(4, user.getImage());
             stmt.setInt(5, user.getCoins());
-            stmt.setInt(6, user.getElo());
-            stmt.setInt(7, user.getBattlesWon());
-            stmt.setInt(8, user.getBattlesLost());
-            stmt.setString(9, user.getUsername());
+            stmt.setString(6, user.getUsername());
 
-            stmt.executeUpdate();
-        } catch (Exception e) {
-            e.printStackTrace();
+            var result = stmt.executeQuery();
+            return result.next() ? readUser(result) : null;
+        }
+    }
+
+    //adds elo changes and won / lost battles to the current values of all given users with one statement,
+    //the arrays are parallel (one entry per user). returns the updated rows
+    public ArrayList<User> addBattleResults(Connection connection, String[] usernames, int[] eloChanges, int[] battlesWon, int[] battlesLost) throws SQLException {
+        String sql = "UPDATE users u SET elo = u.elo + r.elo_change, battles_won = u.battles_won + r.won, battles_lost = u.battles_lost + r.lost " +
+                "FROM unnest(?::text[], ?::int[], ?::int[], ?::int[]) AS r(username, elo_change, won, lost) " +
+                "WHERE u.username = r.username RETURNING u.*;";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, connection.createArrayOf("text", usernames));
+            stmt.setArray(2, connection.createArrayOf("int4", boxed(eloChanges)));
+            stmt.setArray(3, connection.createArrayOf("int4", boxed(battlesWon)));
+            stmt.setArray(4, connection.createArrayOf("int4", boxed(battlesLost)));
+            var result = stmt.executeQuery();
+            ArrayList<User> users = new ArrayList<>(usernames.length);
+            while (result.next()) {
+                users.add(readUser(result));
+            }
+            return users;
+        }
+    }
+
+    //takes the coins from the user if they have enough, with one statement so two purchases never spend the same
+    //coins twice. returns the updated row, null if the user has too few coins
+    public User spendCoins(Connection connection, String username, int coins) throws SQLException {
+        String sql = "UPDATE users SET coins = coins - ? WHERE username = ? AND coins >= ? RETURNING *;";
+        try (var stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, coins);
+            stmt.setString(2, username);
+            stmt.setInt(3, coins);
+            var result = stmt.executeQuery();
+            return result.next() ? readUser(result) : null;
+        }
+    }
+
+    //called with every row a write returned, after its transaction was committed
+    public void committed(User user) {
+    }
+
+    private static Integer[] boxed(int[] values) {
+        Integer[] boxed = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
         }
+        return boxed;
+    }
+
+    private static User readUser(ResultSet result) throws SQLException {
+        return new User(
+                result.getString("username"),
+                result.getString("password"),
+                result.getString("display_name"),
+                result.getString("bio"),
+                result.getString("image"),
+                result.getInt("coins"),
+                result.getInt("elo"),
+                result.getInt("battles_won"),
+                result.getInt("battles_lost")
+        );
     }
 
     public void delete(User user) {
         String sql = "DELETE FROM users WHERE username = ?;";
-        try (var stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, user.getUsername());
             stmt.executeUpdate();
         } catch (Exception e) {
@@ -0,0 +1,87 @@
+package app.daos;
+
+import app.models.Card;
+import app.models.UserWithCards;
+import app.services.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+//reads a user together with the owned cards in one query (one round trip instead of two)
+public class UserWithCardsDao {
+
+    private final ConnectionPool connectionPool;
+
+    public UserWithCardsDao(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public UserWithCards read(String username) {
+        String sql = "SELECT u.*, c.card_id, c.name, c.damage, c.is_in_deck FROM users u " +
+                "LEFT JOIN cards c ON c.card_owner_username = u.username " +
+                "WHERE u.username = ? ORDER BY c.timestamp ASC;";
+        return read(sql, username);
+    }
+
+    //deck cards only, the stack stays empty
+    public UserWithCards readWithDeck(String username) {
+        String sql = "SELECT u.*, c.card_id, c.name, c.damage, c.is_in_deck FROM users u " +
+                "LEFT JOIN cards c ON c.card_owner_username = u.username AND c.is_in_deck = true " +
+                "WHERE u.username = ? ORDER BY c.timestamp ASC;";
+        return read(sql, username);
+    }
+
+    private UserWithCards read(String sql, String username) {
+        try (Connection connection = connectionPool.getConnection(); var stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, username);
+            var result = stmt.executeQuery();
+
+            //if user does not exist
+            if (!result.next()) {
+                return null;
+            }
+
+            UserWithCards userWithCards = toUserWithCards(result);
+            do {
+                //user without cards has one row with null card columns
+                if (result.getString("card_id") != null) {
+                    Card card = new Card(
+                            result.getString("card_id"),
+                            result.getString("name"),
+                            result.getFloat("damage"),
+                            username,
+                            result.getBoolean("is_in_deck")
+                    );
+                    if (card.isInDeck()) {
+                        userWithCards.getDeck().add(card);
+                    } else {
+                        userWithCards.getStack().add(card);
+                    }
+                }
+            } while (result.next());
+
+            return userWithCards;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private UserWithCards toUserWithCards(ResultSet result) throws SQLException {
+        UserWithCards userWithCards = new UserWithCards();
+        userWithCards.setUsername(result.getString("username"));
+        userWithCards.setPassword(result.getString("password"));
+        userWithCards.setDisplayName(result.getString("display_name"));
+        userWithCards.setBio(result.getString("bio"));
+        userWithCards.setImage(result.getString("image"));
+        userWithCards.setCoins(result.getInt("coins"));
+        userWithCards.setElo(result.getInt("elo"));
+        userWithCards.setBattlesWon(result.getInt("battles_won"));
+        userWithCards.setBattlesLost(result.getInt("battles_lost"));
+        userWithCards.setDeck(new ArrayList<>());
+        userWithCards.setStack(new ArrayList<>());
+        return userWithCards;
+    }
+}
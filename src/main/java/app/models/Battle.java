@@ -1,9 +1,11 @@
 package app.models;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -12,30 +14,45 @@ import java.util.concurrent.ThreadLocalRandom;
 public class Battle {
     private UserWithCards user1;
     private UserWithCards user2;
-    CompletableFuture<String> battleLogFuture = new CompletableFuture<>();
-    String battleLog = "";
+    //completed by whoever runs the battle, once the battle is over and saved
+    CompletableFuture<BattleLog> battleLogFuture = new CompletableFuture<>();
+    BattleLog battleLog;
+    //every card pick comes from this seed, the same seed and starting decks give the same battle again
+    @Setter(AccessLevel.NONE)
+    private long seed;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private SplittableRandom random;
 
     public Battle(){
+        setSeed(ThreadLocalRandom.current().nextLong());
+    }
 
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
     }
 
     public void startBattle() {
 
-        battleLog += "\"Battle started between " + user1.getUsername() + " and " + user2.getUsername() + "!\n";
+        battleLog = new BattleLog(user1.getUsername(), user2.getUsername(), seed, cardIds(user1.getDeck()), cardIds(user2.getDeck()));
 
-        for (int round = 1; round <= 100; round++) {
+        for (int round = 1; round <= BattleLog.MAX_ROUNDS; round++) {
 
             Card user1Card = getRandomCardFromDeck(user1);
             Card user2Card = getRandomCardFromDeck(user2);
 
-            battleLog += "\n\n" + user1.getUsername() + ": " + user1Card.getName() + "(" + user1Card.getDamage() + " Damage) vs " + user2.getUsername() + ": " + user2Card.getName() + "(" + user2Card.getDamage() + " Damage)";
+            //element, immunity and species effects come from the precomputed BattleRules tables
+            float user1Damage = BattleRules.damage(user1Card, user2Card);
+            float user2Damage = BattleRules.damage(user2Card, user1Card);
+            int outcome = outcome(user1Damage, user2Damage);
 
-            Card winningCard = determineWinningCard(user1Card, user2Card);
+            battleLog.addRound(user1Card, user2Card, user1Damage, user2Damage, outcome);
 
-            if(winningCard == user1Card) {
+            if(outcome == BattleLog.USER1) {
                 user2.getDeck().remove(user2Card);
                 user1.getDeck().add(user2Card);
-            } else if(winningCard == user2Card) {
+            } else if(outcome == BattleLog.USER2) {
                 user1.getDeck().remove(user1Card);
                 user2.getDeck().add(user1Card);
             }
@@ -48,140 +65,53 @@ public class Battle {
 
         if(user1.getDeck().size() > user2.getDeck().size()) {
             //user1 won the battle
-            battleLog += "\n\n" + user1.getUsername() + " won the battle!";
-
             user1.setBattlesWon(user1.getBattlesWon() + 1);
             user2.setBattlesLost(user2.getBattlesLost() + 1);
             user1.setElo(user1.getElo() + 3);
             user2.setElo(user2.getElo() - 5);
+            battleLog.finish(BattleLog.USER1, 3, -5);
 
         } else if (user2.getDeck().size() > user1.getDeck().size()){
             //user2 won the battle
-            battleLog += "\n\n" + user2.getUsername() + " won the battle!";
-
             user2.setBattlesWon(user2.getBattlesWon() + 1);
             user1.setBattlesLost(user1.getBattlesLost() + 1);
             user2.setElo(user2.getElo() + 3);
             user1.setElo(user1.getElo() - 5);
+            battleLog.finish(BattleLog.USER2, -5, 3);
 
         } else {
             //draw
-            battleLog += "\n\nThe battle ends in a draw!";
+            battleLog.finish(BattleLog.DRAW, 0, 0);
         }
-
-        battleLogFuture.complete(battleLog);
     }
-    
-    public Card determineWinningCard(Card card1, Card card2){
-
-        float card1Damage = card1.getDamage();
-        float card2Damage = card2.getDamage();
-
-        if(card1.getName().contains("Spell") || card2.getName().contains("Spell")) {
-            //Fight with Spell vs. Monster or Spell vs. Spell
-
-            battleLog += " => " + card1.getDamage() + " VS " + card2.getDamage();
-
-            //knights get drowned by water spells
-            if(card1.getName().contains("Knight") && card2.getName().contains("Water")) {
-                card1Damage = 0;
-            }
-            if(card1.getName().contains("Water") && card2.getName().contains("Knight")) {
-                card2Damage = 0;
-            }
-
-            //the kraken is immune to spells
-            if(card1.getName().contains("Kraken")) {
-                card2Damage = 0;
-            }
-            if(card2.getName().contains("Kraken")) {
-                card1Damage = 0;
-            }
-
-            //element effect calculation
-
-            //fire is effective against normal
-            if(card1.getName().contains("Fire") && !card2.getName().contains("Water") && !card2.getName().contains("Fire")) {
-                card1Damage *= 2;
-                card2Damage *= 0.5;
-            }
-
-            //normal is ineffective against fire
-            if(!card1.getName().contains("Water") && !card1.getName().contains("Fire") && card2.getName().contains("Fire")) {
-                card1Damage *= 0.5;
-                card2Damage *= 2;
-            }
-
-            //water is effective against fire
-            if(card1.getName().contains("Water") && card2.getName().contains("Fire")) {
-                card1Damage *= 2;
-                card2Damage *= 0.5;
-            }
-
-            //fire is ineffective against water
-            if(card1.getName().contains("Fire") && card2.getName().contains("Water")) {
-                card1Damage *= 0.5;
-                card2Damage *= 2;
-            }
 
-            //normal is effective against water
-            if(!card1.getName().contains("Water") && !card1.getName().contains("Fire") && card2.getName().contains("Water")) {
-                card1Damage *= 2;
-                card2Damage *= 0.5;
-            }
-
-            //water is ineffective against normal
-            if(card1.getName().contains("Water") && !card2.getName().contains("Water") && !card2.getName().contains("Fire")) {
-                card1Damage *= 0.5;
-                card2Damage *= 2;
-            }
-
-            battleLog += " -> " + card1Damage + " VS " + card2Damage;
-
-        } else {
-            //pure monster fight (elements don't matter)
-
-            //goblins are afraid of dragons
-            if(card1.getName().contains("Goblin") && card2.getName().contains("Dragon")) {
-                card1Damage = 0;
-            }
-            if(card1.getName().contains("Dragon") && card2.getName().contains("Goblin")) {
-                card2Damage = 0;
-            }
-
-            //wizards can control orcs
-            if(card1.getName().contains("Ork") && card2.getName().contains("Wizard")) {
-                card1Damage = 0;
-            }
-            if(card1.getName().contains("Wizard") && card2.getName().contains("Ork")) {
-                card2Damage = 0;
-            }
-
-            //fire elves can dodge the attacks of dragons
-            if(card1.getName().contains("Dragon") && card2.getName().contains("FireElf")) {
-                card1Damage = 0;
-            }
-            if(card1.getName().contains("FireElf") && card2.getName().contains("Dragon")) {
-                card2Damage = 0;
-            }
-        }
+    //returns the card that wins this round or null for a draw
+    public Card determineWinningCard(Card card1, Card card2){
+        int outcome = outcome(BattleRules.damage(card1, card2), BattleRules.damage(card2, card1));
+        return outcome == BattleLog.USER1 ? card1 : outcome == BattleLog.USER2 ? card2 : null;
+    }
 
-        if(card1Damage > card2Damage) {
-            battleLog += " => " + card1.getName() + " wins";
-            return card1;
+    private static int outcome(float user1Damage, float user2Damage) {
+        if(user1Damage > user2Damage) {
+            return BattleLog.USER1;
         }
-
-        if(card2Damage > card1Damage) {
-            battleLog += " => " + card2.getName() + " wins";
-            return card2;
+        if(user2Damage > user1Damage) {
+            return BattleLog.USER2;
         }
-        battleLog += " => Draw";
-        return null; //in case of a draw
+        return BattleLog.DRAW;
     }
 
     public Card getRandomCardFromDeck(UserWithCards user){
         //choose random card from deck
-        int randomNum = ThreadLocalRandom.current().nextInt(0, user.getDeck().size());
+        int randomNum = random.nextInt(0, user.getDeck().size());
         return user.getDeck().get(randomNum);
     }
+
+    private static String[] cardIds(ArrayList<Card> deck) {
+        String[] cardIds = new String[deck.size()];
+        for (int i = 0; i < cardIds.length; i++) {
+            cardIds[i] = deck.get(i).getCardId();
+        }
+        return cardIds;
+    }
 }
@@ -0,0 +1,165 @@
+package app.models;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//what happened in one battle, recorded as a few primitive arrays while the battle runs.
+//text or JSON is only rendered when a client asks for it, so a battle itself allocates almost nothing per round
+@Getter
+public class BattleLog {
+    public static final int MAX_ROUNDS = 100;
+
+    public static final int DRAW = 0;
+    public static final int USER1 = 1;
+    public static final int USER2 = 2;
+
+    private final String username1;
+    private final String username2;
+    //enough to play the battle again: the seed and both decks (card ids) in the order they started in
+    private final long seed;
+    private final String[] deck1;
+    private final String[] deck2;
+    //id in the battles table, 0 until the battle is saved
+    @Setter
+    private long id = 0;
+
+    //every card that took part, rounds refer to them by index
+    @Getter(AccessLevel.NONE)
+    private final List<Card> cards = new ArrayList<>(8);
+    @Getter(AccessLevel.NONE)
+    private final byte[] card1 = new byte[MAX_ROUNDS];
+    @Getter(AccessLevel.NONE)
+    private final byte[] card2 = new byte[MAX_ROUNDS];
+    @Getter(AccessLevel.NONE)
+    private final float[] baseDamage1 = new float[MAX_ROUNDS];
+    @Getter(AccessLevel.NONE)
+    private final float[] baseDamage2 = new float[MAX_ROUNDS];
+    @Getter(AccessLevel.NONE)
+    private final float[] damage1 = new float[MAX_ROUNDS];
+    @Getter(AccessLevel.NONE)
+    private final float[] damage2 = new float[MAX_ROUNDS];
+    @Getter(AccessLevel.NONE)
+    private final byte[] outcomes = new byte[MAX_ROUNDS];
+
+    private int rounds = 0;
+    private int roundsWon1 = 0;
+    private int roundsWon2 = 0;
+    //DRAW, USER1 or USER2
+    private int winner = DRAW;
+    private int eloChange1 = 0;
+    private int eloChange2 = 0;
+
+    public BattleLog(String username1, String username2) {
+        this(username1, username2, 0, new String[0], new String[0]);
+    }
+
+    public BattleLog(String username1, String username2, long seed, String[] deck1, String[] deck2) {
+        this.username1 = username1;
+        this.username2 = username2;
+        this.seed = seed;
+        this.deck1 = deck1;
+        this.deck2 = deck2;
+    }
+
+    //effective damage is the damage after element, immunity and species rules, outcome is DRAW, USER1 or USER2
+    void addRound(Card user1Card, Card user2Card, float effectiveDamage1, float effectiveDamage2, int outcome) {
+        card1[rounds] = (byte) indexOf(user1Card);
+        card2[rounds] = (byte) indexOf(user2Card);
+        baseDamage1[rounds] = user1Card.getDamage();
+        baseDamage2[rounds] = user2Card.getDamage();
+        damage1[rounds] = effectiveDamage1;
+        damage2[rounds] = effectiveDamage2;
+        outcomes[rounds] = (byte) outcome;
+        if (outcome == USER1) {
+            roundsWon1++;
+        } else if (outcome == USER2) {
+            roundsWon2++;
+        }
+        rounds++;
+    }
+
+    void finish(int winner, int eloChange1, int eloChange2) {
+        this.winner = winner;
+        this.eloChange1 = eloChange1;
+        this.eloChange2 = eloChange2;
+    }
+
+    //username of the winner, null for a draw
+    public String getWinnerUsername() {
+        return winner == USER1 ? username1 : winner == USER2 ? username2 : null;
+    }
+
+    //the human readable log, the same text /battles always returned
+    public String renderText() {
+        StringBuilder text = new StringBuilder(128 + rounds * 160);
+        text.append("\"Battle started between ").append(username1).append(" and ").append(username2).append("!\n");
+        for (int round = 0; round < rounds; round++) {
+            renderRound(round, text);
+        }
+        if (winner == USER1) {
+            text.append("\n\n").append(username1).append(" won the battle!");
+        } else if (winner == USER2) {
+            text.append("\n\n").append(username2).append(" won the battle!");
+        } else {
+            text.append("\n\nThe battle ends in a draw!");
+        }
+        return text.toString();
+    }
+
+    //winner and number of rounds, with withPlayers also rounds won and elo change of both players
+    public Map<String, Object> summarize(boolean withPlayers) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("Winner", getWinnerUsername());
+        summary.put("Rounds", rounds);
+        if (withPlayers) {
+            summary.put("Players", List.of(
+                    player(username1, roundsWon1, eloChange1),
+                    player(username2, roundsWon2, eloChange2)
+            ));
+        }
+        return summary;
+    }
+
+    void renderRound(int round, StringBuilder text) {
+        Card user1Card = cards.get(card1[round]);
+        Card user2Card = cards.get(card2[round]);
+        text.append("\n\n").append(username1).append(": ").append(user1Card.getName()).append('(').append(baseDamage1[round])
+                .append(" Damage) vs ").append(username2).append(": ").append(user2Card.getName()).append('(').append(baseDamage2[round])
+                .append(" Damage)");
+        if (BattleRules.isSpellFight(user1Card, user2Card)) {
+            text.append(" => ").append(baseDamage1[round]).append(" VS ").append(baseDamage2[round])
+                    .append(" -> ").append(damage1[round]).append(" VS ").append(damage2[round]);
+        }
+        if (outcomes[round] == USER1) {
+            text.append(" => ").append(user1Card.getName()).append(" wins");
+        } else if (outcomes[round] == USER2) {
+            text.append(" => ").append(user2Card.getName()).append(" wins");
+        } else {
+            text.append(" => Draw");
+        }
+    }
+
+    private int indexOf(Card card) {
+        for (int i = 0; i < cards.size(); i++) {
+            if (cards.get(i) == card) {
+                return i;
+            }
+        }
+        cards.add(card);
+        return cards.size() - 1;
+    }
+
+    private static Map<String, Object> player(String username, int roundsWon, int eloChange) {
+        Map<String, Object> player = new LinkedHashMap<>();
+        player.put("Username", username);
+        player.put("RoundsWon", roundsWon);
+        player.put("EloChange", eloChange);
+        return player;
+    }
+}
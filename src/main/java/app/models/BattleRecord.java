@@ -0,0 +1,23 @@
+package app.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+//a saved battle, see BattleLog for the meaning of the fields
+@Getter
+@Setter
+@AllArgsConstructor
+public class BattleRecord {
+    private long id;
+    private long seed;
+    private String username1;
+    private String username2;
+    private String[] deck1;
+    private String[] deck2;
+    //BattleLog.DRAW, USER1 or USER2
+    private int winner;
+    private int eloChange1;
+    private int eloChange2;
+    private int rounds;
+}
@@ -0,0 +1,99 @@
+package app.models;
+
+//damage multipliers for every pair of card kinds (spell flag, element, species), built once from the rules,
+//so a round is two array lookups instead of dozens of name scans.
+//a multiplier of 0 means the attacker does no damage at all
+public final class BattleRules {
+    private static final int ELEMENTS = Card.Element.values().length;
+    private static final int SPECIES = Card.Species.values().length;
+    private static final int KINDS = 2 * ELEMENTS * SPECIES;
+
+    //[attacker kind][defender kind]
+    private static final float[][] MULTIPLIERS = new float[KINDS][KINDS];
+
+    static {
+        for (int attacker = 0; attacker < KINDS; attacker++) {
+            for (int defender = 0; defender < KINDS; defender++) {
+                MULTIPLIERS[attacker][defender] = multiplier(
+                        isSpell(attacker), element(attacker), species(attacker),
+                        isSpell(defender), element(defender), species(defender)
+                );
+            }
+        }
+    }
+
+    private BattleRules() {}
+
+    static int kind(boolean spell, Card.Element element, Card.Species species) {
+        return ((spell ? 1 : 0) * ELEMENTS + element.ordinal()) * SPECIES + species.ordinal();
+    }
+
+    //spells are involved if either card is a spell, otherwise it is a pure monster fight where elements don't matter
+    public static boolean isSpellFight(Card attacker, Card defender) {
+        return attacker.isSpell() || defender.isSpell();
+    }
+
+    //damage the attacker deals to the defender in this matchup
+    public static float damage(Card attacker, Card defender) {
+        return damage(attacker.getKind(), attacker.getDamage(), defender.getKind());
+    }
+
+    //same as damage(Card, Card) for callers that keep cards as primitive arrays of kinds and damages
+    public static float damage(int attackerKind, float attackerDamage, int defenderKind) {
+        float multiplier = MULTIPLIERS[attackerKind][defenderKind];
+        //no damage is exactly 0, even for a negative or infinite base damage
+        return multiplier == 0 ? 0 : attackerDamage * multiplier;
+    }
+
+    private static float multiplier(boolean attackerSpell, Card.Element attackerElement, Card.Species attackerSpecies,
+                                    boolean defenderSpell, Card.Element defenderElement, Card.Species defenderSpecies) {
+        if (!attackerSpell && !defenderSpell) {
+            //goblins are afraid of dragons
+            if (attackerSpecies == Card.Species.GOBLIN && defenderSpecies == Card.Species.DRAGON) {
+                return 0;
+            }
+            //wizards can control orcs
+            if (attackerSpecies == Card.Species.ORK && defenderSpecies == Card.Species.WIZARD) {
+                return 0;
+            }
+            //fire elves can dodge the attacks of dragons
+            if (attackerSpecies == Card.Species.DRAGON && defenderSpecies == Card.Species.FIRE_ELF) {
+                return 0;
+            }
+            return 1;
+        }
+
+        //knights get drowned by water spells
+        if (attackerSpecies == Card.Species.KNIGHT && defenderElement == Card.Element.WATER) {
+            return 0;
+        }
+        //the kraken is immune to spells
+        if (defenderSpecies == Card.Species.KRAKEN) {
+            return 0;
+        }
+        return elementMultiplier(attackerElement, defenderElement);
+    }
+
+    //water is effective against fire, fire against normal and normal against water
+    private static float elementMultiplier(Card.Element attacker, Card.Element defender) {
+        if (attacker == defender) {
+            return 1;
+        }
+        boolean effective = (attacker == Card.Element.WATER && defender == Card.Element.FIRE)
+                || (attacker == Card.Element.FIRE && defender == Card.Element.NORMAL)
+                || (attacker == Card.Element.NORMAL && defender == Card.Element.WATER);
+        return effective ? 2 : 0.5f;
+    }
+
+    private static boolean isSpell(int kind) {
+        return kind / (ELEMENTS * SPECIES) == 1;
+    }
+
+    private static Card.Element element(int kind) {
+        return Card.Element.values()[kind / SPECIES % ELEMENTS];
+    }
+
+    private static Card.Species species(int kind) {
+        return Card.Species.values()[kind % SPECIES];
+    }
+}
@@ -3,13 +3,12 @@ package app.models;
 import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
-@AllArgsConstructor
 public class Card {
     @JsonAlias("Id")
     @JsonProperty("Id")
@@ -25,5 +24,106 @@ public class Card {
     @JsonIgnore
     private boolean isInDeck = false;
 
+    //derived from the name whenever it is set, so battles never have to look at the name again
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private Element element = Element.NORMAL;
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private Species species = Species.OTHER;
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private boolean spell = false;
+    //index into the BattleRules tables
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private int kind = BattleRules.kind(false, Element.NORMAL, Species.OTHER);
+
     public Card() {}
+
+    public Card(String cardId, String name, float damage, String cardOwnerUsername, boolean isInDeck) {
+        setCardId(cardId);
+        setName(name);
+        setDamage(damage);
+        setCardOwnerUsername(cardOwnerUsername);
+        setInDeck(isInDeck);
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        classify();
+    }
+
+    //the string based rules applied every rule whose keywords a name contains, one element and one species per card
+    //can only give the same results if a name has at most one of each. new cards are checked with this,
+    //e.g. WaterFireSpell or GoblinDragon are refused
+    public static boolean isSupportedName(String name) {
+        if (name == null) {
+            return true;
+        }
+        if (name.contains("Water") && name.contains("Fire")) {
+            return false;
+        }
+        int species = 0;
+        for (Species candidate : Species.values()) {
+            if (candidate.keyword != null && name.contains(candidate.keyword)) {
+                species++;
+            }
+        }
+        return species <= 1;
+    }
+
+    private void classify() {
+        String cardName = name == null ? "" : name;
+        spell = cardName.contains("Spell");
+        element = Element.of(cardName);
+        species = Species.of(cardName);
+        kind = BattleRules.kind(spell, element, species);
+    }
+
+    public enum Element {
+        NORMAL,
+        FIRE,
+        WATER;
+
+        //a name with more than one element keyword is water (not isSupportedName, only older cards can have one)
+        static Element of(String name) {
+            if (name.contains("Water")) {
+                return WATER;
+            }
+            if (name.contains("Fire")) {
+                return FIRE;
+            }
+            return NORMAL;
+        }
+    }
+
+    //only the species that appear in a battle rule, everything else is OTHER
+    public enum Species {
+        GOBLIN("Goblin"),
+        DRAGON("Dragon"),
+        WIZARD("Wizard"),
+        ORK("Ork"),
+        KNIGHT("Knight"),
+        KRAKEN("Kraken"),
+        FIRE_ELF("FireElf"),
+        OTHER(null);
+
+        private final String keyword;
+
+        Species(String keyword) {
+            this.keyword = keyword;
+        }
+
+        //a name with more than one species keyword gets the first one in declaration order (not isSupportedName, only
+        //older cards can have one)
+        static Species of(String name) {
+            for (Species species : values()) {
+                if (species.keyword != null && name.contains(species.keyword)) {
+                    return species;
+                }
+            }
+            return OTHER;
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package app.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//result of GET /decks/suggest, the best decks first
+@Getter
+@Setter
+public class DeckSuggestion {
+    @JsonProperty("Decks")
+    List<SuggestedDeck> decks = new ArrayList<>();
+    //number of opponent decks the candidates were scored against
+    @JsonProperty("Opponents")
+    int opponents;
+    //cards left after dropping the ones that can never be in the best deck
+    @JsonProperty("Candidates")
+    int candidates;
+    @JsonProperty("Evaluated")
+    long evaluated;
+    //false if the time budget ran out before every combination was scored or pruned
+    @JsonProperty("Complete")
+    boolean complete;
+
+    @Getter
+    @Setter
+    public static class SuggestedDeck {
+        @JsonProperty("Cards")
+        List<Card> cards;
+        //estimated chance to win against the sampled opponents, from the search model
+        @JsonProperty("Score")
+        double score;
+        //average win rate of simulated battles against the sampled opponents
+        @JsonProperty("WinRate")
+        double winRate;
+    }
+}
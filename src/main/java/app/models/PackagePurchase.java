@@ -0,0 +1,16 @@
+package app.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+
+//result of buying a package, cards is only set if it was bought
+@Getter
+@AllArgsConstructor
+public class PackagePurchase {
+    public enum Status { BOUGHT, NOT_ENOUGH_COINS, NO_PACKAGE, FAILED }
+
+    private final Status status;
+    private final ArrayList<Card> cards;
+}
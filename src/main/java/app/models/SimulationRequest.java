@@ -0,0 +1,25 @@
+package app.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+
+//body of POST /simulations, every field is optional:
+//without Deck the caller's deck is used, the opponent is either OpponentDeck or the deck of the user Opponent
+@Getter
+@Setter
+public class SimulationRequest {
+    @JsonProperty("Deck")
+    ArrayList<Card> deck;
+    @JsonProperty("Opponent")
+    String opponent;
+    @JsonProperty("OpponentDeck")
+    ArrayList<Card> opponentDeck;
+    @JsonProperty("Battles")
+    Integer battles;
+    //same seed, decks and number of battles give the same result
+    @JsonProperty("Seed")
+    Long seed;
+}
@@ -0,0 +1,40 @@
+package app.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SimulationResult {
+    @JsonProperty("Battles")
+    int battles;
+    @JsonProperty("Seed")
+    long seed;
+    @JsonProperty("Wins")
+    long wins;
+    @JsonProperty("Draws")
+    long draws;
+    @JsonProperty("Losses")
+    long losses;
+    @JsonProperty("AverageRounds")
+    double averageRounds;
+    @JsonProperty("WinRate")
+    Rate winRate;
+    @JsonProperty("DrawRate")
+    Rate drawRate;
+    @JsonProperty("LossRate")
+    Rate lossRate;
+
+    //observed rate with its 95% confidence interval
+    @Getter
+    @Setter
+    public static class Rate {
+        @JsonProperty("Rate")
+        double rate;
+        @JsonProperty("Low")
+        double low;
+        @JsonProperty("High")
+        double high;
+    }
+}
@@ -0,0 +1,146 @@
+package app.models;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//a knockout tournament, kept in memory only. registration keeps a snapshot of the player's deck, the bracket is
+//filled in round by round while it runs. every method locks the tournament, so progress and bracket are always
+//read in a consistent state and never wait for the database
+public class Tournament {
+    public enum State { REGISTRATION, RUNNING, FINISHED, CANCELLED, FAILED }
+
+    public enum Registration { REGISTERED, CLOSED, FULL, ALREADY_REGISTERED }
+
+    @Getter
+    private final long id;
+    @Getter
+    private final String name;
+    @Getter
+    private final int maxPlayers;
+    //null if the tournament is started by hand
+    @Getter
+    private final Instant startsAt;
+
+    private final LinkedHashMap<String, UserWithCards> players = new LinkedHashMap<>();
+    private final ArrayList<List<TournamentMatch>> rounds = new ArrayList<>();
+    private State state = State.REGISTRATION;
+    private int totalRounds;
+    private int matchesPlayed;
+    private String champion;
+    private String error;
+
+    public Tournament(long id, String name, int maxPlayers, Instant startsAt) {
+        this.id = id;
+        this.name = name;
+        this.maxPlayers = maxPlayers;
+        this.startsAt = startsAt;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Registration register(UserWithCards player) {
+        if (state != State.REGISTRATION) {
+            return Registration.CLOSED;
+        }
+        if (players.containsKey(player.getUsername())) {
+            return Registration.ALREADY_REGISTERED;
+        }
+        if (players.size() >= maxPlayers) {
+            return Registration.FULL;
+        }
+        players.put(player.getUsername(), player);
+        return Registration.REGISTERED;
+    }
+
+    //closes the registration and returns the players in the order they registered, an empty list if there are
+    //too few of them (the tournament is cancelled) and null if it was already started
+    public synchronized List<UserWithCards> start() {
+        if (state != State.REGISTRATION) {
+            return null;
+        }
+        if (players.size() < 2) {
+            state = State.CANCELLED;
+            return List.of();
+        }
+        state = State.RUNNING;
+        totalRounds = 32 - Integer.numberOfLeadingZeros(players.size() - 1);
+        return new ArrayList<>(players.values());
+    }
+
+    public synchronized void addRound(List<TournamentMatch> matches) {
+        rounds.add(matches);
+    }
+
+    public synchronized void matchPlayed(TournamentMatch match, UserWithCards winner, int battles) {
+        match.setWinner(winner);
+        match.setBattles(battles);
+        if (!match.isBye()) {
+            matchesPlayed++;
+        }
+    }
+
+    //battle ids of the deciding battles once the round was saved, parallel to matches (0 for byes)
+    public synchronized void roundSaved(List<TournamentMatch> matches, long[] battleIds) {
+        for (int i = 0; i < matches.size(); i++) {
+            matches.get(i).setBattleId(battleIds[i]);
+        }
+    }
+
+    public synchronized void finish(String champion) {
+        this.champion = champion;
+        state = State.FINISHED;
+    }
+
+    public synchronized void fail(String error) {
+        this.error = error;
+        state = State.FAILED;
+    }
+
+    //progress of the tournament, every match eliminates one player so there are players - 1 matches
+    public synchronized Map<String, Object> summarize() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("Id", id);
+        summary.put("Name", name);
+        summary.put("State", state.name());
+        summary.put("StartsAt", startsAt == null ? null : startsAt.toString());
+        summary.put("MaxPlayers", maxPlayers);
+        summary.put("Players", players.size());
+        summary.put("Round", rounds.size());
+        summary.put("Rounds", totalRounds);
+        summary.put("MatchesPlayed", matchesPlayed);
+        summary.put("Matches", state == State.REGISTRATION || state == State.CANCELLED ? 0 : players.size() - 1);
+        summary.put("Champion", champion);
+        summary.put("Error", error);
+        return summary;
+    }
+
+    //all rounds played or running, a match without a winner is still being fought
+    public synchronized Map<String, Object> bracket() {
+        List<List<Map<String, Object>>> renderedRounds = new ArrayList<>(rounds.size());
+        for (List<TournamentMatch> round : rounds) {
+            List<Map<String, Object>> renderedMatches = new ArrayList<>(round.size());
+            for (TournamentMatch match : round) {
+                Map<String, Object> renderedMatch = new LinkedHashMap<>();
+                renderedMatch.put("Player1", match.getPlayer1().getUsername());
+                renderedMatch.put("Player2", match.isBye() ? null : match.getPlayer2().getUsername());
+                renderedMatch.put("Winner", match.getWinner() == null ? null : match.getWinner().getUsername());
+                renderedMatch.put("Battles", match.getBattles());
+                renderedMatch.put("Battle", match.getBattleId() == 0 ? null : match.getBattleId());
+                renderedMatches.add(renderedMatch);
+            }
+            renderedRounds.add(renderedMatches);
+        }
+        Map<String, Object> bracket = new LinkedHashMap<>();
+        bracket.put("Id", id);
+        bracket.put("State", state.name());
+        bracket.put("Rounds", renderedRounds);
+        return bracket;
+    }
+}
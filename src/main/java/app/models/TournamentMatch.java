@@ -0,0 +1,30 @@
+package app.models;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+//one pairing of a tournament round, player2 is null for a bye. the result is only set through the tournament,
+//under its lock
+@Getter
+@Setter(AccessLevel.PACKAGE)
+public class TournamentMatch {
+    @Setter(AccessLevel.NONE)
+    private final UserWithCards player1;
+    @Setter(AccessLevel.NONE)
+    private final UserWithCards player2;
+    private UserWithCards winner;
+    //battles fought, more than one if the match was drawn
+    private int battles;
+    //the battle that decided the match, 0 until the round is saved
+    private long battleId;
+
+    public TournamentMatch(UserWithCards player1, UserWithCards player2) {
+        this.player1 = player1;
+        this.player2 = player2;
+    }
+
+    public boolean isBye() {
+        return player2 == null;
+    }
+}
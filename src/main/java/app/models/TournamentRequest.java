@@ -0,0 +1,17 @@
+package app.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+//body of POST /tournaments, without StartsAt (an ISO-8601 time) the tournament is started by hand
+@Getter
+@Setter
+public class TournamentRequest {
+    @JsonProperty("Name")
+    String name;
+    @JsonProperty("MaxPlayers")
+    Integer maxPlayers;
+    @JsonProperty("StartsAt")
+    String startsAt;
+}
@@ -1,5 +1,6 @@
 package app.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,4 +16,8 @@ public class UserScoreboard {
     int battlesWon;
     @JsonProperty("Losses")
     int battlesLost;
+    //position on the leaderboard, left out of the JSON if unknown
+    @JsonProperty("Rank")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer rank;
 }
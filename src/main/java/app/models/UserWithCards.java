@@ -1,9 +1,12 @@
 package app.models;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
 
 @Getter
 @Setter
@@ -20,5 +23,54 @@ public class UserWithCards {
     private ArrayList<Card> deck;
     private ArrayList<Card> stack;
 
+    //snapshot of the state in the database, null if this user was not loaded (everything counts as changed)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private User loadedUser;
+    //card id -> is in deck, for every card the user owned when the snapshot was taken
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private HashMap<String, Boolean> loadedCards;
+
     public UserWithCards() {}
+
+    //takes the snapshot, called after loading and after saving
+    public void markLoaded() {
+        loadedUser = new User(username, password, displayName, bio, image, coins, elo, battlesWon, battlesLost);
+        loadedCards = new HashMap<>();
+        for (Card card : deck) {
+            loadedCards.put(card.getCardId(), true);
+        }
+        for (Card card : stack) {
+            loadedCards.put(card.getCardId(), false);
+        }
+    }
+
+    //true if the part of the user row the user saves (profile, coins) differs from the snapshot, elo and stats
+    //only change in battle settlement
+    public boolean userChanged() {
+        if (loadedUser == null) {
+            return true;
+        }
+        return !Objects.equals(username, loadedUser.getUsername())
+                || !Objects.equals(password, loadedUser.getPassword())
+                || !Objects.equals(displayName, loadedUser.getDisplayName())
+                || !Objects.equals(bio, loadedUser.getBio())
+                || !Objects.equals(image, loadedUser.getImage())
+                || coins != loadedUser.getCoins();
+    }
+
+    //cards of the given list (deck if isInDeck) that are new to this user or moved between deck and stack
+    public ArrayList<Card> changedCards(ArrayList<Card> cards, boolean isInDeck) {
+        if (loadedCards == null) {
+            return cards;
+        }
+        ArrayList<Card> changedCards = new ArrayList<>();
+        for (Card card : cards) {
+            if (!Objects.equals(loadedCards.get(card.getCardId()), isInDeck)) {
+                changedCards.add(card);
+            }
+        }
+        return changedCards;
+    }
 }
@@ -0,0 +1,148 @@
+package app.repositories;
+
+import app.daos.BattleDao;
+import app.daos.CardDao;
+import app.daos.UserDao;
+import app.models.Battle;
+import app.models.BattleLog;
+import app.models.BattleRecord;
+import app.models.Card;
+import app.models.User;
+import app.services.ConnectionPool;
+import app.services.Leaderboard;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class BattleRepository {
+    private final ConnectionPool connectionPool;
+    private final UserDao userDao;
+    private final CardDao cardDao;
+    private final BattleDao battleDao;
+    private final Leaderboard leaderboard;
+
+    public BattleRepository(ConnectionPool connectionPool, UserDao userDao, CardDao cardDao, BattleDao battleDao, Leaderboard leaderboard) {
+        this.connectionPool = connectionPool;
+        this.userDao = userDao;
+        this.cardDao = cardDao;
+        this.battleDao = battleDao;
+        this.leaderboard = leaderboard;
+    }
+
+    //saves the result of a finished battle for both players in one transaction, once per battle:
+    //elo and stats are added to the current values (one statement for both users), only the cards that ended up
+    //with the other player change owner (one statement, only if they still belong to the player who lost them) and
+    //the battle is recorded. returns the battle id, throws if nothing could be saved
+    public long settle(Battle battle) {
+        BattleLog battleLog = battle.getBattleLog();
+
+        ArrayList<String> transferredCards = new ArrayList<>();
+        ArrayList<String> previousOwners = new ArrayList<>();
+        ArrayList<String> newOwners = new ArrayList<>();
+        addTransfers(battleLog.getDeck2(), battle.getUser1().getDeck(), battleLog.getUsername2(), battleLog.getUsername1(),
+                transferredCards, previousOwners, newOwners);
+        addTransfers(battleLog.getDeck1(), battle.getUser2().getDeck(), battleLog.getUsername1(), battleLog.getUsername2(),
+                transferredCards, previousOwners, newOwners);
+
+        boolean draw = battleLog.getWinner() == BattleLog.DRAW;
+        String[] usernames = {battleLog.getUsername1(), battleLog.getUsername2()};
+        int[] eloChanges = {battleLog.getEloChange1(), battleLog.getEloChange2()};
+        int[] battlesWon = {battleLog.getWinner() == BattleLog.USER1 ? 1 : 0, battleLog.getWinner() == BattleLog.USER2 ? 1 : 0};
+        int[] battlesLost = {battleLog.getWinner() == BattleLog.USER2 ? 1 : 0, battleLog.getWinner() == BattleLog.USER1 ? 1 : 0};
+
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                //a draw changes no elo and no stats
+                List<User> users = draw ? List.of() : userDao.addBattleResults(connection, usernames, eloChanges, battlesWon, battlesLost);
+                cardDao.transferToDecks(connection, transferredCards.toArray(new String[0]),
+                        previousOwners.toArray(new String[0]), newOwners.toArray(new String[0]));
+                long battleId = battleDao.create(connection, battleLog);
+                connection.commit();
+
+                for (User user : users) {
+                    userDao.committed(user);
+                    leaderboard.update(user);
+                }
+                return battleId;
+            } catch (SQLException e) {
+                //nothing of the battle is saved if one statement fails
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("battle could not be saved", e);
+        }
+    }
+
+    //saves a whole tournament round in one transaction: elo and stats of all its players with one statement and
+    //all its battles (drawn ones too) as one batch. tournament battles are fought with copies of the decks, so no
+    //card changes owner. returns the battle ids in the order of the logs, throws if nothing could be saved
+    public long[] settleRound(List<BattleLog> battleLogs) {
+        //username -> elo change, battles won, battles lost
+        LinkedHashMap<String, int[]> results = new LinkedHashMap<>();
+        for (BattleLog battleLog : battleLogs) {
+            if (battleLog.getWinner() != BattleLog.DRAW) {
+                addResult(results, battleLog.getUsername1(), battleLog.getEloChange1(), battleLog.getWinner() == BattleLog.USER1);
+                addResult(results, battleLog.getUsername2(), battleLog.getEloChange2(), battleLog.getWinner() == BattleLog.USER2);
+            }
+        }
+        String[] usernames = results.keySet().toArray(new String[0]);
+        int[] eloChanges = new int[usernames.length];
+        int[] battlesWon = new int[usernames.length];
+        int[] battlesLost = new int[usernames.length];
+        for (int i = 0; i < usernames.length; i++) {
+            int[] result = results.get(usernames[i]);
+            eloChanges[i] = result[0];
+            battlesWon[i] = result[1];
+            battlesLost[i] = result[2];
+        }
+
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<User> users = usernames.length == 0 ? List.of() : userDao.addBattleResults(connection, usernames, eloChanges, battlesWon, battlesLost);
+                long[] battleIds = battleDao.createAll(connection, battleLogs);
+                connection.commit();
+
+                for (User user : users) {
+                    userDao.committed(user);
+                    leaderboard.update(user);
+                }
+                return battleIds;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("tournament round could not be saved", e);
+        }
+    }
+
+    public BattleRecord getBattle(long battleId) {
+        return battleDao.read(battleId);
+    }
+
+    private static void addResult(LinkedHashMap<String, int[]> results, String username, int eloChange, boolean won) {
+        int[] result = results.computeIfAbsent(username, key -> new int[3]);
+        result[0] += eloChange;
+        result[won ? 1 : 2]++;
+    }
+
+    //cards of the final deck that started in the other player's deck
+    private static void addTransfers(String[] otherStartingDeck, ArrayList<Card> finalDeck, String previousOwner, String newOwner,
+                                     ArrayList<String> transferredCards, ArrayList<String> previousOwners, ArrayList<String> newOwners) {
+        HashSet<String> otherCards = new HashSet<>(List.of(otherStartingDeck));
+        for (Card card : finalDeck) {
+            if (otherCards.contains(card.getCardId())) {
+                transferredCards.add(card.getCardId());
+                previousOwners.add(previousOwner);
+                newOwners.add(newOwner);
+            }
+        }
+    }
+}
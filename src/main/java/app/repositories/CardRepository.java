@@ -1,59 +1,74 @@
 package app.repositories;
 
 import app.daos.CardDao;
+import app.daos.PackageDao;
 import app.daos.UserDao;
 import app.models.Card;
+import app.models.PackagePurchase;
 import app.models.User;
-import app.models.UserScoreboard;
-import app.models.UserWithCards;
+import app.services.ConnectionPool;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Objects;
 
 public class CardRepository {
+    public static final int PACKAGE_PRICE = 5;
+
+    private final ConnectionPool connectionPool;
+    private final UserDao userDao;
     private final CardDao cardDao;
+    private final PackageDao packageDao;
 
-    public CardRepository(CardDao cardDao) {
+    public CardRepository(ConnectionPool connectionPool, UserDao userDao, CardDao cardDao, PackageDao packageDao) {
+        this.connectionPool = connectionPool;
+        this.userDao = userDao;
         this.cardDao = cardDao;
+        this.packageDao = packageDao;
     }
 
     public boolean createCards(ArrayList<Card> cards) {
-
-        //check that no card already exists
-        for (Card card : cards) {
-            if(cardDao.read(card.getCardId()) != null){
-                return false; // a card already exists
-            }
-        }
-
-        //if no card exists, create them
-        for (Card card : cards) {
-            cardDao.create(card);
-        }
-
-        return true; // all cards successfully created
+        //cards and package are created together, nothing is created if a card already exists
+        return packageDao.create(cards);
     }
 
-    public ArrayList<Card> openPackage() {
-
-        //ArrayList to hold cards of opened package
-        ArrayList<Card> cards = new ArrayList<>();
-
-        //get all cards from db (LinkedHashMap so that they are in the same order for the curl script)
-        LinkedHashMap<String, Card> allCards = cardDao.readAll();
-
-        for (String cardId : allCards.keySet()) {
-            //all cards that have no owner are in package
-            if (allCards.get(cardId).getCardOwnerUsername() == null) {
-                cards.add(allCards.get(cardId)); //add card to opened package
-                //every package has 5 cards
-                if(cards.size() == 5) {
-                    return cards;
+    //takes the coins, claims the next package (in the order they were created, like the curl script expects) and
+    //puts the cards into the buyer's stack in one transaction: nothing is bought if one of them fails, so a package
+    //is never lost and two purchases never spend the same coins. the coins come first, so a user who cannot pay
+    //never locks a package another buyer could get
+    public PackagePurchase buyPackage(String username) {
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                User user = userDao.spendCoins(connection, username, PACKAGE_PRICE);
+                if (user == null) {
+                    connection.rollback();
+                    return new PackagePurchase(PackagePurchase.Status.NOT_ENOUGH_COINS, null);
                 }
+                ArrayList<Card> cards = packageDao.claimNext(connection);
+                if (cards == null) {
+                    //the coins go back to the user
+                    connection.rollback();
+                    return new PackagePurchase(PackagePurchase.Status.NO_PACKAGE, null);
+                }
+                String[] cardIds = new String[cards.size()];
+                for (int i = 0; i < cards.size(); i++) {
+                    cards.get(i).setCardOwnerUsername(username);
+                    cards.get(i).setInDeck(false);
+                    cardIds[i] = cards.get(i).getCardId();
+                }
+                cardDao.updateOwner(connection, username, false, cardIds);
+                connection.commit();
+
+                userDao.committed(user);
+                return new PackagePurchase(PackagePurchase.Status.BOUGHT, cards);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new PackagePurchase(PackagePurchase.Status.FAILED, null);
         }
-        //if no packages are available
-        return null;
     }
 }
@@ -2,96 +2,154 @@ package app.repositories;
 
 import app.daos.CardDao;
 import app.daos.UserDao;
+import app.daos.UserWithCardsDao;
 import app.models.Card;
 import app.models.User;
 import app.models.UserScoreboard;
 import app.models.UserWithCards;
+import app.services.ConnectionPool;
+import app.services.Leaderboard;
+import app.services.RequestContext;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Objects;
 
 public class UserWithCardsRepository {
+    private final ConnectionPool connectionPool;
     private final UserDao userDao;
     private final CardDao cardDao;
+    private final UserWithCardsDao userWithCardsDao;
+    private final Leaderboard leaderboard;
 
-    public UserWithCardsRepository(UserDao userDao, CardDao cardDao) {
+    public UserWithCardsRepository(ConnectionPool connectionPool, UserDao userDao, CardDao cardDao, UserWithCardsDao userWithCardsDao, Leaderboard leaderboard) {
+        this.connectionPool = connectionPool;
         this.userDao = userDao;
         this.cardDao = cardDao;
+        this.userWithCardsDao = userWithCardsDao;
+        this.leaderboard = leaderboard;
     }
 
+    //user with deck and stack, read once per request (user row and cards with one query)
     public UserWithCards getUser(String username) {
-        User user = userDao.read(username);
+        UserWithCards userWithCards = RequestContext.getUser(username);
+        if (userWithCards != null) {
+            return userWithCards;
+        }
+
+        userWithCards = userWithCardsDao.read(username);
 
         //if user does not exist
-        if(user == null){
+        if(userWithCards == null){
             return null;
         }
 
-        UserWithCards userWithCards = new UserWithCards();
-        userWithCards.setUsername(user.getUsername());
-        userWithCards.setPassword(user.getPassword());
-        userWithCards.setDisplayName(user.getDisplayName());
-        userWithCards.setBio(user.getBio());
-        userWithCards.setImage(user.getImage());
-        userWithCards.setCoins(user.getCoins());
-        userWithCards.setElo(user.getElo());
-        userWithCards.setBattlesWon(user.getBattlesWon());
-        userWithCards.setBattlesLost(user.getBattlesLost());
-        userWithCards.setDeck(new ArrayList<>());
-        userWithCards.setStack(new ArrayList<>());
-
-        LinkedHashMap<String, Card> allCards = cardDao.readAll();
-        for (String cardId : allCards.keySet()) {
-            if (Objects.equals(allCards.get(cardId).getCardOwnerUsername(), userWithCards.getUsername())) {
-                if (allCards.get(cardId).isInDeck()) {
-                    userWithCards.getDeck().add(allCards.get(cardId));
-                } else {
-                    userWithCards.getStack().add(allCards.get(cardId));
-                }
-            }
+        userWithCards.markLoaded();
+        RequestContext.putUser(userWithCards);
+
+        return userWithCards;
+    }
+
+    //user with deck only, enough for battles (updateUser then only writes the deck cards),
+    //if the whole user was already loaded in this request that one is used
+    public UserWithCards getUserWithDeck(String username) {
+        UserWithCards userWithCards = RequestContext.getUser(username);
+        if (userWithCards != null) {
+            return userWithCards;
         }
 
+        userWithCards = userWithCardsDao.readWithDeck(username);
+
+        //if user does not exist
+        if(userWithCards == null){
+            return null;
+        }
+
+        //not put into the request context, it has no stack
+        userWithCards.markLoaded();
+
         return userWithCards;
     }
 
+    //loads the whole user, so the controller of this request gets it without another query
     public boolean validateToken(String token){
-        return(!(userDao.read(token) == null));
+        return(!(getUser(token) == null));
     }
 
 
     public void createUser (User user) throws IllegalAccessException {
-        userDao.create(user);
+        //only reached if the user was inserted, the row has the starting elo and stats the database gave it
+        leaderboard.update(userDao.create(user));
     }
 
+    //writes only what changed since the user was loaded: the user row if profile or coins differ
+    //and the cards that were added or moved between deck and stack, all in one transaction.
+    //elo, stats and cards won or lost in battles are written by BattleRepository.settle
     public void updateUser(UserWithCards userWithCards) {
-        User user = new User(
-                userWithCards.getUsername(),
-                userWithCards.getPassword(),
-                userWithCards.getDisplayName(),
-                userWithCards.getBio(),
-                userWithCards.getImage(),
-                userWithCards.getCoins(),
-                userWithCards.getElo(),
-                userWithCards.getBattlesWon(),
-                userWithCards.getBattlesLost()
-        );
-        userDao.update(user);
+        boolean userChanged = userWithCards.userChanged();
+        ArrayList<Card> changedDeck = userWithCards.changedCards(userWithCards.getDeck(), true);
+        ArrayList<Card> changedStack = userWithCards.changedCards(userWithCards.getStack(), false);
 
         for(Card card : userWithCards.getDeck()) {
             card.setCardOwnerUsername(userWithCards.getUsername());
             card.setInDeck(true);
-            cardDao.update(card);
         }
 
         for(Card card : userWithCards.getStack()) {
             card.setCardOwnerUsername(userWithCards.getUsername());
             card.setInDeck(false);
-            cardDao.update(card);
+        }
+
+        //nothing to write
+        if (!userChanged && changedDeck.isEmpty() && changedStack.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
+            User user = new User(
+                    userWithCards.getUsername(),
+                    userWithCards.getPassword(),
+                    userWithCards.getDisplayName(),
+                    userWithCards.getBio(),
+                    userWithCards.getImage(),
+                    userWithCards.getCoins(),
+                    userWithCards.getElo(),
+                    userWithCards.getBattlesWon(),
+                    userWithCards.getBattlesLost()
+            );
+            try {
+                User updated = userChanged ? userDao.update(connection, user) : null;
+                cardDao.updateOwner(connection, userWithCards.getUsername(), true, cardIds(changedDeck));
+                cardDao.updateOwner(connection, userWithCards.getUsername(), false, cardIds(changedStack));
+                connection.commit();
+                //the row as saved, with the elo and stats of battles settled since this user was read
+                if (updated != null) {
+                    userDao.committed(updated);
+                    leaderboard.update(updated);
+                }
+            } catch (SQLException e) {
+                //nothing of the user is written if one statement fails
+                connection.rollback();
+                throw e;
+            }
+            //the saved state is the new baseline
+            userWithCards.markLoaded();
+        } catch (Exception e) {
+            e.printStackTrace();
         }
     }
 
+    private String[] cardIds(ArrayList<Card> cards) {
+        String[] cardIds = new String[cards.size()];
+        for (int i = 0; i < cards.size(); i++) {
+            cardIds[i] = cards.get(i).getCardId();
+        }
+        return cardIds;
+    }
+
     public UserScoreboard getScoreboard(String username) {
+        //only the user row is needed, usually served by the user cache
         User user = userDao.read(username);
 
         if(user == null) {
@@ -104,34 +162,53 @@ public class UserWithCardsRepository {
         userScoreboard.setBattlesWon(user.getBattlesWon());
         userScoreboard.setBattlesLost(user.getBattlesLost());
 
+        loadLeaderboard();
+        int rank = leaderboard.rankOf(username);
+        if (rank > 0) {
+            userScoreboard.setRank(rank);
+        }
+
         return userScoreboard;
     }
 
+    //all scoreboards ordered by elo descending
     public ArrayList<UserScoreboard> getAllScoreboards() {
-        ArrayList<User> users = userDao.readAll();
+        return getScoreboards(0, Integer.MAX_VALUE);
+    }
 
-        if(users == null || users.isEmpty()) {
+    //scoreboards with rank offset + 1 to offset + limit
+    public ArrayList<UserScoreboard> getScoreboards(int offset, int limit) {
+        loadLeaderboard();
+
+        ArrayList<UserScoreboard> scoreboards = leaderboard.page(offset, limit);
+        if(scoreboards.isEmpty() && offset == 0) {
             return null;
         }
 
-        ArrayList<UserScoreboard> scoreboards = new ArrayList<>();
-
-        for(User user : users) {
-            UserScoreboard userScoreboard = new UserScoreboard();
-            userScoreboard.setDisplayName(user.getDisplayName());
-            userScoreboard.setElo(user.getElo());
-            userScoreboard.setBattlesWon(user.getBattlesWon());
-            userScoreboard.setBattlesLost(user.getBattlesLost());
-            scoreboards.add(userScoreboard);
-        }
+        return scoreboards;
+    }
 
-        //sort scoreboards by elo descending
-        scoreboards.sort((o1, o2) -> o2.getElo() - o1.getElo());
+    //changes with every elo, win or loss change, so anything rendered from the scoreboards can be reused while it is equal
+    public long getLeaderboardVersion() {
+        loadLeaderboard();
+        return leaderboard.getVersion();
+    }
 
-        return scoreboards;
+    //reads all users once, retries if a user was updated while they were read
+    private void loadLeaderboard() {
+        while (!leaderboard.isLoaded()) {
+            long version = leaderboard.getVersion();
+            ArrayList<User> users = userDao.readAll();
+            if (users == null) {
+                return; //database error, try again with the next request
+            }
+            leaderboard.load(users, version);
+        }
     }
 
     public void deleteUser(UserWithCards userWithCards) {
+        RequestContext.removeUser(userWithCards.getUsername());
+        leaderboard.remove(userWithCards.getUsername());
         User user = new User();
         user.setUsername(userWithCards.getUsername());
         userDao.delete(user);
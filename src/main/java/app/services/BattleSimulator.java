@@ -0,0 +1,209 @@
+package app.services;
+
+import app.models.BattleLog;
+import app.models.BattleRules;
+import app.models.Card;
+import app.models.SimulationResult;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//plays many battles between two decks in memory with the rules of Battle, to estimate how likely a deck wins.
+//the battles are split into chunks of CHUNK_SIZE that run in parallel on a fork/join pool, every chunk has its own
+//random generator derived from the seed and the chunk number, so the result only depends on the seed, not on the threads
+public class BattleSimulator {
+    private static final int CHUNK_SIZE = 4096;
+    //95% confidence
+    private static final double Z = 1.96;
+
+    private final ForkJoinPool pool;
+
+    public BattleSimulator(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    //other searches over battles (DeckSuggester) share the pool, so all of them together stay within the parallelism
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public SimulationResult simulate(List<Card> deck1, List<Card> deck2, int battles, long seed) {
+        Matchups matchups = new Matchups(deck1, deck2);
+        int chunks = (battles + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long[] totals = pool.invoke(new SimulationTask(matchups, battles, seed, 0, chunks));
+
+        SimulationResult result = new SimulationResult();
+        result.setBattles(battles);
+        result.setSeed(seed);
+        result.setWins(totals[BattleLog.USER1]);
+        result.setLosses(totals[BattleLog.USER2]);
+        result.setDraws(totals[BattleLog.DRAW]);
+        result.setAverageRounds(battles == 0 ? 0 : (double) totals[ROUNDS] / battles);
+        result.setWinRate(rate(totals[BattleLog.USER1], battles));
+        result.setDrawRate(rate(totals[BattleLog.DRAW], battles));
+        result.setLossRate(rate(totals[BattleLog.USER2], battles));
+        return result;
+    }
+
+    //index of the round count in the totals, after DRAW, USER1 and USER2
+    private static final int ROUNDS = 3;
+
+    //Wilson score interval, stays inside [0, 1] even for rates close to 0 or 1
+    static SimulationResult.Rate rate(long count, int battles) {
+        SimulationResult.Rate rate = new SimulationResult.Rate();
+        if (battles == 0) {
+            return rate;
+        }
+        double p = (double) count / battles;
+        double denominator = 1 + Z * Z / battles;
+        double center = (p + Z * Z / (2.0 * battles)) / denominator;
+        double margin = Z * Math.sqrt(p * (1 - p) / battles + Z * Z / (4.0 * battles * battles)) / denominator;
+        rate.setRate(p);
+        //exact bounds when every or no battle counted, rounding would leave them just inside
+        rate.setLow(count == 0 ? 0 : Math.max(0, center - margin));
+        rate.setHigh(count == battles ? 1 : Math.min(1, center + margin));
+        return rate;
+    }
+
+    //seed + chunk alone would give every chunk the stream of the previous one shifted by one number,
+    //the mixing (Stafford's variant 13 of the murmur3 finalizer) spreads the chunks over the whole range
+    static long chunkSeed(long seed, int chunk) {
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class SimulationTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Matchups matchups;
+        private final int battles;
+        private final long seed;
+        private final int fromChunk;
+        private final int toChunk;
+
+        private SimulationTask(Matchups matchups, int battles, long seed, int fromChunk, int toChunk) {
+            this.matchups = matchups;
+            this.battles = battles;
+            this.seed = seed;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                SimulationTask left = new SimulationTask(matchups, battles, seed, fromChunk, middle);
+                left.fork();
+                long[] right = new SimulationTask(matchups, battles, seed, middle, toChunk).compute();
+                long[] totals = left.join();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += right[i];
+                }
+                return totals;
+            }
+
+            long[] totals = new long[4];
+            if (fromChunk == toChunk) {
+                return totals;
+            }
+            SplittableRandom random = new SplittableRandom(chunkSeed(seed, fromChunk));
+            SimulatedBattle battle = new SimulatedBattle(matchups);
+            int end = Math.min(battles, (fromChunk + 1) * CHUNK_SIZE);
+            for (int i = fromChunk * CHUNK_SIZE; i < end; i++) {
+                totals[battle.play(random)]++;
+                totals[ROUNDS] += battle.rounds;
+            }
+            return totals;
+        }
+    }
+
+    //damage of every card against every other card, computed once per simulation.
+    //cards 0 to size1 - 1 are the first deck, the rest the second
+    static class Matchups {
+        final int size1;
+        final int size2;
+        final int cards;
+        //damage[attacker * cards + defender]
+        final float[] damage;
+
+        Matchups(List<Card> deck1, List<Card> deck2) {
+            size1 = deck1.size();
+            size2 = deck2.size();
+            cards = size1 + size2;
+            int[] kinds = new int[cards];
+            float[] damages = new float[cards];
+            for (int i = 0; i < cards; i++) {
+                Card card = i < size1 ? deck1.get(i) : deck2.get(i - size1);
+                kinds[i] = card.getKind();
+                damages[i] = card.getDamage();
+            }
+            damage = new float[cards * cards];
+            for (int attacker = 0; attacker < cards; attacker++) {
+                for (int defender = 0; defender < cards; defender++) {
+                    damage[attacker * cards + defender] = BattleRules.damage(kinds[attacker], damages[attacker], kinds[defender]);
+                }
+            }
+        }
+    }
+
+    //one battle like Battle.startBattle, the decks are arrays of card numbers that are reused for every battle.
+    //a lost card is swapped with the last one instead of shifting the rest, which does not matter for random picks
+    static class SimulatedBattle {
+        private final Matchups matchups;
+        private final int[] deck1;
+        private final int[] deck2;
+        int rounds;
+
+        SimulatedBattle(Matchups matchups) {
+            this.matchups = matchups;
+            this.deck1 = new int[matchups.cards];
+            this.deck2 = new int[matchups.cards];
+        }
+
+        //returns DRAW, USER1 or USER2 of BattleLog
+        int play(SplittableRandom random) {
+            int size1 = matchups.size1;
+            int size2 = matchups.size2;
+            for (int i = 0; i < size1; i++) {
+                deck1[i] = i;
+            }
+            for (int i = 0; i < size2; i++) {
+                deck2[i] = size1 + i;
+            }
+
+            int cards = matchups.cards;
+            float[] damage = matchups.damage;
+            rounds = 0;
+            while (rounds < BattleLog.MAX_ROUNDS && size1 > 0 && size2 > 0) {
+                rounds++;
+                int index1 = random.nextInt(size1);
+                int index2 = random.nextInt(size2);
+                int card1 = deck1[index1];
+                int card2 = deck2[index2];
+                float damage1 = damage[card1 * cards + card2];
+                float damage2 = damage[card2 * cards + card1];
+
+                if (damage1 > damage2) {
+                    deck2[index2] = deck2[--size2];
+                    deck1[size1++] = card2;
+                } else if (damage2 > damage1) {
+                    deck1[index1] = deck1[--size1];
+                    deck2[size2++] = card1;
+                }
+            }
+
+            if (size1 > size2) {
+                return BattleLog.USER1;
+            }
+            if (size2 > size1) {
+                return BattleLog.USER2;
+            }
+            return BattleLog.DRAW;
+        }
+    }
+}
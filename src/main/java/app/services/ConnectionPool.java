@@ -0,0 +1,245 @@
+package app.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//bounded pool of database connections, a DAO borrows one per unit of work and closing it returns it to the pool.
+//uses a Semaphore and lock based queues only, so waiting threads (also virtual ones) never block inside a monitor
+public class ConnectionPool {
+    //idle connections younger than this are handed out without a validation round trip
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DatabaseConnection databaseConnection;
+    @Getter
+    private final int minSize;
+    @Getter
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long leakThresholdMillis;
+
+    //one permit per connection that may be borrowed
+    private final Semaphore permits;
+    //most recently returned connection first, so rarely used ones can time out on the server side
+    private final LinkedBlockingDeque<IdleConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<BorrowedConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(DatabaseConnection databaseConnection, int minSize, int maxSize, long acquireTimeoutMillis, long leakThresholdMillis) {
+        this.databaseConnection = databaseConnection;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        try {
+            for (int i = 0; i < minSize; i++) {
+                idleConnections.addLast(new IdleConnection(openConnection()));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (leakThresholdMillis > 0) {
+            ScheduledExecutorService leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "connection-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            leakDetector.scheduleAtFixedRate(this::reportLeaks, leakThresholdMillis, leakThresholdMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Connection getConnection() throws SQLException {
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("no database connection available within " + acquireTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+
+        try {
+            return borrow(takeValidConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long acquisitionCount = acquisitions.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("MinSize", minSize);
+        metrics.put("MaxSize", maxSize);
+        metrics.put("Total", totalConnections.get());
+        metrics.put("Active", borrowedConnections.size());
+        metrics.put("Idle", idleConnections.size());
+        metrics.put("Waiting", permits.getQueueLength());
+        metrics.put("Acquisitions", acquisitionCount);
+        metrics.put("Timeouts", timeouts.sum());
+        metrics.put("Leaks", leaks.sum());
+        metrics.put("AverageWaitMillis", acquisitionCount == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / acquisitionCount);
+        metrics.put("MaxWaitMillis", maxWaitNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    private Connection takeValidConnection() throws SQLException {
+        IdleConnection idleConnection;
+        while ((idleConnection = idleConnections.pollFirst()) != null) {
+            boolean recentlyUsed = System.currentTimeMillis() - idleConnection.getReturnedAt() < VALIDATION_BYPASS_MILLIS;
+            if (recentlyUsed || idleConnection.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return idleConnection.getConnection();
+            }
+            discard(idleConnection.getConnection());
+        }
+        return openConnection();
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = databaseConnection.openConnection();
+        totalConnections.incrementAndGet();
+        return connection;
+    }
+
+    private Connection borrow(Connection connection) {
+        BorrowedConnection borrowedConnection = new BorrowedConnection(connection);
+        borrowedConnections.add(borrowedConnection);
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                borrowedConnection
+        );
+    }
+
+    private void giveBack(BorrowedConnection borrowedConnection) {
+        borrowedConnections.remove(borrowedConnection);
+        Connection connection = borrowedConnection.getConnection();
+        try {
+            //a unit of work that left a transaction open must not leak it to the next borrower
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idleConnections.addFirst(new IdleConnection(connection));
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(Connection connection) {
+        totalConnections.decrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        acquisitions.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void reportLeaks() {
+        long now = System.currentTimeMillis();
+        for (BorrowedConnection borrowedConnection : borrowedConnections) {
+            if (now - borrowedConnection.getBorrowedAt() > leakThresholdMillis && !borrowedConnection.isReported()) {
+                borrowedConnection.setReported(true);
+                leaks.increment();
+                System.err.println("database connection held for more than " + leakThresholdMillis + " ms, borrowed at:");
+                borrowedConnection.getBorrowedBy().printStackTrace();
+            }
+        }
+    }
+
+    @Getter(AccessLevel.PRIVATE)
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long returnedAt = System.currentTimeMillis();
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    //handle behind the proxy given to the DAO, close() returns the connection instead of closing it
+    @Getter(AccessLevel.PRIVATE)
+    private class BorrowedConnection implements InvocationHandler {
+        private final Connection connection;
+        private final long borrowedAt = System.currentTimeMillis();
+        //only captured when leak detection is on, it is printed if the connection is not returned in time
+        private final Throwable borrowedBy = leakThresholdMillis > 0 ? new Throwable("connection borrowed here") : null;
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+        @Setter(AccessLevel.PRIVATE)
+        private volatile boolean reported = false;
+
+        private BorrowedConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        giveBack(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "pooled " + connection;
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
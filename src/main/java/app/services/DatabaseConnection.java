@@ -1,25 +1,17 @@
 package app.services;
 
-import lombok.Getter;
-
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 
+//opens physical connections to the database, normally only used by the ConnectionPool
 public class DatabaseConnection {
 
-    @Getter
-    private final Connection connection;
+    private final String url = System.getProperty("db.url", "jdbc:postgresql://localhost:5432/swe1db");
+    private final String user = System.getProperty("db.user", "swe1user");
+    private final String password = System.getProperty("db.password", "swe1pw");
 
-    public DatabaseConnection() {
-        try{
-            this.connection = DriverManager.getConnection(
-                "jdbc:postgresql://localhost:5432/swe1db",
-                "swe1user",
-                "swe1pw"
-            );
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    public Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
     }
 }
@@ -0,0 +1,435 @@
+package app.services;
+
+import app.models.BattleRules;
+import app.models.Card;
+import app.models.DeckSuggestion;
+import app.models.SimulationResult;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+//searches the 4-card combinations of a stack for the decks that do best against a sample of opponent decks.
+//a deck is scored with a model: against every opponent deck count the pairings (my card, their card) it wins (w)
+//and loses (l), a battle is then roughly a random walk from 4:4 cards that ends at 8:0, so it wins with
+//w^4 / (w^4 + l^4) (gambler's ruin, draws and the round limit ignored). the score is the average over the opponents.
+//the model only needs a few sums per deck, so large stacks can be searched exhaustively:
+//- of all cards with the same kind only the 4 strongest can be part of the best deck, the rest is dropped
+//- branch and bound: a partial deck is skipped if even the best remaining cards can't beat the current top decks
+//- the first card of the deck is split across the simulator's fork/join pool
+//the best decks of the model are then played against the opponents with the BattleSimulator and ranked by win rate
+public class DeckSuggester {
+    private static final int DECK_SIZE = 4;
+    //the search keeps this many times the requested decks, the simulated battles pick the best of them
+    private static final int SHORTLIST_FACTOR = 3;
+    private static final int SIMULATED_BATTLES = 1000;
+    //checking the clock for every deck would cost more than scoring it
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final BattleSimulator simulator;
+    //how many opponent decks a search should be scored against
+    @Getter
+    private final int opponentSample;
+    private final long timeBudgetMillis;
+
+    public DeckSuggester(BattleSimulator simulator, int opponentSample, long timeBudgetMillis) {
+        this.simulator = simulator;
+        this.opponentSample = opponentSample;
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public DeckSuggestion suggest(List<Card> stack, List<? extends List<Card>> opponentDecks, int limit, long seed) {
+        Candidates candidates = new Candidates(stack, opponentDecks);
+        Search search = search(candidates, limit * SHORTLIST_FACTOR);
+
+        DeckSuggestion suggestion = new DeckSuggestion();
+        suggestion.setOpponents(opponentDecks.size());
+        suggestion.setCandidates(candidates.size);
+        suggestion.setEvaluated(search.evaluated.get());
+        suggestion.setComplete(!search.timedOut);
+        List<DeckSuggestion.SuggestedDeck> shortlist = new ArrayList<>();
+        for (TopDecks.Entry entry : search.merge()) {
+            List<Card> deck = new ArrayList<>(DECK_SIZE);
+            for (int card : entry.cards) {
+                deck.add(candidates.cards[card]);
+            }
+            DeckSuggestion.SuggestedDeck suggested = new DeckSuggestion.SuggestedDeck();
+            suggested.setCards(deck);
+            suggested.setScore(entry.score);
+            //the same seed for every deck, so they all face the same draws and the comparison is fair
+            suggested.setWinRate(winRate(deck, opponentDecks, seed));
+            shortlist.add(suggested);
+        }
+        //the model ignores draws and the round limit, the simulated battles decide the order
+        shortlist.sort((a, b) -> Double.compare(b.getWinRate(), a.getWinRate()));
+        suggestion.getDecks().addAll(shortlist.subList(0, Math.min(limit, shortlist.size())));
+        return suggestion;
+    }
+
+    //the count best decks of the model
+    Search search(Candidates candidates, int count) {
+        Search search = new Search(candidates, count, System.nanoTime() + timeBudgetMillis * 1000000);
+        if (candidates.size >= DECK_SIZE) {
+            simulator.getPool().invoke(new SearchTask(search, 0, candidates.size - DECK_SIZE + 1));
+        }
+        return search;
+    }
+
+    private double winRate(List<Card> deck, List<? extends List<Card>> opponentDecks, long seed) {
+        if (opponentDecks.isEmpty()) {
+            return 0;
+        }
+        double winRate = 0;
+        for (List<Card> opponentDeck : opponentDecks) {
+            SimulationResult result = simulator.simulate(deck, opponentDeck, SIMULATED_BATTLES, seed);
+            winRate += result.getWinRate().getRate();
+        }
+        return winRate / opponentDecks.size();
+    }
+
+    static double score(int wins, int losses) {
+        if (wins == 0 && losses == 0) {
+            return 0.5;
+        }
+        double w2 = (double) wins * wins;
+        double l2 = (double) losses * losses;
+        return w2 * w2 / (w2 * w2 + l2 * l2);
+    }
+
+    //the stack as primitive arrays, only the cards that survive the dominance pruning, sorted by how good they
+    //are on their own so strong decks are found early and the bound prunes most of the rest
+    static class Candidates {
+        final int size;
+        final int opponents;
+        final Card[] cards;
+        //[candidate * opponents + opponent], pairings against that opponent deck won / lost by the candidate
+        final byte[] wins;
+        final byte[] losses;
+        //[candidate * opponents + opponent], best wins / fewest losses of the candidates from this index on
+        final byte[] maxWins;
+        final byte[] minLosses;
+        final int[] kinds;
+        final float[] damages;
+
+        Candidates(List<Card> stack, List<? extends List<Card>> opponentDecks) {
+            opponents = opponentDecks.size();
+            int opponentCards = 0;
+            for (List<Card> deck : opponentDecks) {
+                opponentCards += deck.size();
+            }
+            int[] opponentKinds = new int[opponentCards];
+            float[] opponentDamages = new float[opponentCards];
+            int[] opponentOf = new int[opponentCards];
+            int next = 0;
+            for (int opponent = 0; opponent < opponents; opponent++) {
+                for (Card card : opponentDecks.get(opponent)) {
+                    opponentKinds[next] = card.getKind();
+                    opponentDamages[next] = card.getDamage();
+                    opponentOf[next++] = opponent;
+                }
+            }
+
+            //a stronger card of the same kind wins every pairing the weaker one wins, so per kind the 4 strongest are enough
+            Card[] sorted = stack.toArray(new Card[0]);
+            Arrays.sort(sorted, (a, b) -> a.getKind() != b.getKind()
+                    ? Integer.compare(a.getKind(), b.getKind())
+                    : Float.compare(b.getDamage(), a.getDamage()));
+            Card[] kept = new Card[sorted.length];
+            int keptSize = 0;
+            int sameKind = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                sameKind = i > 0 && sorted[i].getKind() == sorted[i - 1].getKind() ? sameKind + 1 : 0;
+                if (sameKind < DECK_SIZE) {
+                    kept[keptSize++] = sorted[i];
+                }
+            }
+
+            int[] candidateWins = new int[keptSize * opponents];
+            int[] candidateLosses = new int[keptSize * opponents];
+            double[] strength = new double[keptSize];
+            for (int candidate = 0; candidate < keptSize; candidate++) {
+                int kind = kept[candidate].getKind();
+                float damage = kept[candidate].getDamage();
+                for (int i = 0; i < opponentCards; i++) {
+                    float dealt = BattleRules.damage(kind, damage, opponentKinds[i]);
+                    float taken = BattleRules.damage(opponentKinds[i], opponentDamages[i], kind);
+                    if (dealt > taken) {
+                        candidateWins[candidate * opponents + opponentOf[i]]++;
+                        strength[candidate]++;
+                    } else if (taken > dealt) {
+                        candidateLosses[candidate * opponents + opponentOf[i]]++;
+                        strength[candidate]--;
+                    }
+                }
+            }
+
+            Integer[] order = new Integer[keptSize];
+            for (int i = 0; i < keptSize; i++) {
+                order[i] = i;
+            }
+            //stable, so twins (same kind and damage) stay next to each other
+            Arrays.sort(order, (a, b) -> Double.compare(strength[b], strength[a]));
+
+            size = keptSize;
+            cards = new Card[size];
+            kinds = new int[size];
+            damages = new float[size];
+            wins = new byte[size * opponents];
+            losses = new byte[size * opponents];
+            for (int i = 0; i < size; i++) {
+                int candidate = order[i];
+                cards[i] = kept[candidate];
+                kinds[i] = kept[candidate].getKind();
+                damages[i] = kept[candidate].getDamage();
+                for (int opponent = 0; opponent < opponents; opponent++) {
+                    wins[i * opponents + opponent] = (byte) candidateWins[candidate * opponents + opponent];
+                    losses[i * opponents + opponent] = (byte) candidateLosses[candidate * opponents + opponent];
+                }
+            }
+
+            maxWins = new byte[size * opponents];
+            minLosses = new byte[size * opponents];
+            for (int i = size - 1; i >= 0; i--) {
+                for (int opponent = 0; opponent < opponents; opponent++) {
+                    int at = i * opponents + opponent;
+                    boolean last = i == size - 1;
+                    maxWins[at] = last ? wins[at] : (byte) Math.max(wins[at], maxWins[at + opponents]);
+                    minLosses[at] = last ? losses[at] : (byte) Math.min(losses[at], minLosses[at + opponents]);
+                }
+            }
+        }
+
+        //same kind and damage, a deck with one or the other is the same deck
+        boolean same(int a, int b) {
+            return kinds[a] == kinds[b] && damages[a] == damages[b];
+        }
+    }
+
+    //state shared by all tasks of one search
+    static class Search {
+        final Candidates candidates;
+        final int limit;
+        final long deadline;
+        //a deck has to score above this to get into the results, the best lower bound any task has found so far
+        final AtomicLong threshold = new AtomicLong(Double.doubleToLongBits(-1));
+        final AtomicLong evaluated = new AtomicLong();
+        final List<TopDecks> results = new ArrayList<>();
+        volatile boolean timedOut = false;
+
+        Search(Candidates candidates, int limit, long deadline) {
+            this.candidates = candidates;
+            this.limit = limit;
+            this.deadline = deadline;
+        }
+
+        double threshold() {
+            return Double.longBitsToDouble(threshold.get());
+        }
+
+        //every task's own top decks are decks of the search, so the worst of them is a bound for the global top decks
+        void raiseThreshold(double score) {
+            long current;
+            do {
+                current = threshold.get();
+                if (Double.longBitsToDouble(current) >= score) {
+                    return;
+                }
+            } while (!threshold.compareAndSet(current, Double.doubleToLongBits(score)));
+        }
+
+        synchronized void addResults(TopDecks topDecks) {
+            results.add(topDecks);
+        }
+
+        synchronized List<TopDecks.Entry> merge() {
+            TopDecks merged = new TopDecks(limit);
+            for (TopDecks topDecks : results) {
+                for (TopDecks.Entry entry : topDecks.entries()) {
+                    merged.offer(entry.score, entry.cards);
+                }
+            }
+            return merged.entries();
+        }
+    }
+
+    //all decks whose first card (the lowest candidate index) is in [from, to)
+    static class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final int from;
+        private final int to;
+
+        SearchTask(Search search, int from, int to) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SearchTask(search, from, middle), new SearchTask(search, middle, to));
+                return;
+            }
+            if (from > 0 && search.candidates.same(from, from - 1)) {
+                //every deck starting with this card was already searched with its twin
+                return;
+            }
+            new Searcher(search).run(from);
+        }
+    }
+
+    //depth first over one first card, all state in primitive arrays that are reused for every deck
+    static class Searcher {
+        private final Search search;
+        private final Candidates candidates;
+        private final int opponents;
+        private final int[] deck = new int[DECK_SIZE];
+        //[depth * opponents + opponent], wins and losses of the first depth cards
+        private final int[] wins;
+        private final int[] losses;
+        private final TopDecks topDecks;
+        private long evaluated = 0;
+
+        Searcher(Search search) {
+            this.search = search;
+            this.candidates = search.candidates;
+            this.opponents = candidates.opponents;
+            this.wins = new int[(DECK_SIZE + 1) * opponents];
+            this.losses = new int[(DECK_SIZE + 1) * opponents];
+            this.topDecks = new TopDecks(search.limit);
+        }
+
+        void run(int first) {
+            add(0, first);
+            search(1, first + 1);
+            search.evaluated.addAndGet(evaluated);
+            search.addResults(topDecks);
+        }
+
+        private void search(int depth, int start) {
+            if (depth == DECK_SIZE) {
+                evaluate();
+                return;
+            }
+            for (int card = start; card <= candidates.size - (DECK_SIZE - depth) && !search.timedOut; card++) {
+                //with twins only the first one may start a branch, otherwise the same deck comes up twice
+                if (card > start && candidates.same(card, card - 1)) {
+                    continue;
+                }
+                if (bound(depth, card) <= search.threshold()) {
+                    //the bound of a later card is taken over fewer remaining cards, so it can't be higher
+                    return;
+                }
+                add(depth, card);
+                search(depth + 1, card + 1);
+            }
+        }
+
+        private void add(int depth, int card) {
+            deck[depth] = card;
+            int from = depth * opponents;
+            int to = from + opponents;
+            int at = card * opponents;
+            for (int opponent = 0; opponent < opponents; opponent++) {
+                wins[to + opponent] = wins[from + opponent] + candidates.wins[at + opponent];
+                losses[to + opponent] = losses[from + opponent] + candidates.losses[at + opponent];
+            }
+        }
+
+        //best score any deck made of the first depth cards and cards from index card on can reach
+        private double bound(int depth, int card) {
+            if (opponents == 0) {
+                return 0.5;
+            }
+            int missing = DECK_SIZE - depth;
+            int from = depth * opponents;
+            int at = card * opponents;
+            double bound = 0;
+            for (int opponent = 0; opponent < opponents; opponent++) {
+                bound += score(wins[from + opponent] + missing * candidates.maxWins[at + opponent],
+                        losses[from + opponent] + missing * candidates.minLosses[at + opponent]);
+            }
+            return bound / opponents;
+        }
+
+        private void evaluate() {
+            int from = DECK_SIZE * opponents;
+            double score = 0.5;
+            if (opponents > 0) {
+                score = 0;
+                for (int opponent = 0; opponent < opponents; opponent++) {
+                    score += score(wins[from + opponent], losses[from + opponent]);
+                }
+                score /= opponents;
+            }
+            if (topDecks.offer(score, deck) && topDecks.isFull()) {
+                search.raiseThreshold(topDecks.worstScore());
+            }
+            if (++evaluated % CLOCK_INTERVAL == 0 && System.nanoTime() > search.deadline) {
+                search.timedOut = true;
+            }
+        }
+    }
+
+    //the limit best decks seen so far, best first
+    static class TopDecks {
+        private final double[] scores;
+        private final int[][] decks;
+        private int size = 0;
+
+        TopDecks(int limit) {
+            scores = new double[limit];
+            decks = new int[limit][DECK_SIZE];
+        }
+
+        boolean isFull() {
+            return size == scores.length;
+        }
+
+        double worstScore() {
+            return scores[size - 1];
+        }
+
+        //copies the deck if it is good enough, returns false otherwise
+        boolean offer(double score, int[] deck) {
+            if (scores.length == 0 || (isFull() && score <= worstScore())) {
+                return false;
+            }
+            int at = isFull() ? size - 1 : size++;
+            int[] reused = decks[at];
+            while (at > 0 && scores[at - 1] < score) {
+                scores[at] = scores[at - 1];
+                decks[at] = decks[at - 1];
+                at--;
+            }
+            scores[at] = score;
+            System.arraycopy(deck, 0, reused, 0, DECK_SIZE);
+            decks[at] = reused;
+            return true;
+        }
+
+        List<Entry> entries() {
+            List<Entry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(new Entry(scores[i], decks[i].clone()));
+            }
+            return entries;
+        }
+
+        static class Entry {
+            final double score;
+            final int[] cards;
+
+            Entry(double score, int[] cards) {
+                this.score = score;
+                this.cards = cards;
+            }
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package app.services;
+
+import app.models.User;
+import app.models.UserScoreboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//all users ordered by elo (highest first, then by username) in a treap where every node knows the size of its subtree,
+//so top-N, a page by rank and the rank of one user are O(log n) instead of loading and sorting all users.
+//readers share a read lock, updates after battles take the write lock
+public class Leaderboard {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HashMap<String, Node> nodes = new HashMap<>();
+    private Node root;
+    private boolean loaded = false;
+    //incremented by every change, lets load detect updates that happened while the users were read
+    private long version = 0;
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //replaces all entries, returns false (and changes nothing) if the leaderboard changed since expectedVersion
+    public boolean load(List<User> users, long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            if (version != expectedVersion) {
+                return false;
+            }
+            root = null;
+            nodes.clear();
+            for (User user : users) {
+                insert(new Node(user.getUsername(), user.getDisplayName(), user.getElo(), user.getBattlesWon(), user.getBattlesLost()));
+            }
+            loaded = true;
+            version++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //adds the user or moves it to the position of its new elo. a change the leaderboard does not show (coins,
+    //bio, image, password) keeps the version, so rendered pages and their ETags stay valid.
+    //rows of concurrent transactions can arrive in any order, battles won + lost only grows and is the only thing
+    //that changes elo, so a row with fewer battles than the entry is older and ignored
+    public void update(User user) {
+        lock.writeLock().lock();
+        try {
+            Node old = nodes.get(user.getUsername());
+            if (old != null && battles(user) < old.battlesWon + old.battlesLost) {
+                return;
+            }
+            if (old != null && old.elo == user.getElo() && old.battlesWon == user.getBattlesWon()
+                    && old.battlesLost == user.getBattlesLost() && Objects.equals(old.displayName, user.getDisplayName())) {
+                return;
+            }
+            if (old != null) {
+                root = remove(root, old);
+            }
+            insert(new Node(user.getUsername(), user.getDisplayName(), user.getElo(), user.getBattlesWon(), user.getBattlesLost()));
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String username) {
+        lock.writeLock().lock();
+        try {
+            Node old = nodes.remove(username);
+            if (old != null) {
+                root = remove(root, old);
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //1 based rank or 0 if the user is unknown
+    public int rankOf(String username) {
+        lock.readLock().lock();
+        try {
+            Node target = nodes.get(username);
+            if (target == null) {
+                return 0;
+            }
+            int rank = 1;
+            Node node = root;
+            while (node != null) {
+                int comparison = compare(target, node);
+                if (comparison < 0) {
+                    node = node.left;
+                } else {
+                    rank += size(node.left);
+                    if (comparison == 0) {
+                        return rank;
+                    }
+                    rank++;
+                    node = node.right;
+                }
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //scoreboards with rank offset + 1 to offset + limit, each with its rank
+    public ArrayList<UserScoreboard> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            ArrayList<UserScoreboard> page = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+            collect(root, offset, limit, 0, page);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //in order walk that skips whole subtrees before offset, ranksBefore is the number of entries left of node
+    private void collect(Node node, int offset, int limit, int ranksBefore, ArrayList<UserScoreboard> page) {
+        if (node == null || page.size() >= limit) {
+            return;
+        }
+        int nodeRank = ranksBefore + size(node.left);
+        if (offset < nodeRank) {
+            collect(node.left, offset, limit, ranksBefore, page);
+        }
+        if (nodeRank >= offset && page.size() < limit) {
+            page.add(node.toScoreboard(nodeRank + 1));
+        }
+        if ((long) offset + limit > nodeRank + 1) {
+            collect(node.right, offset, limit, nodeRank + 1, page);
+        }
+    }
+
+    private void insert(Node node) {
+        nodes.put(node.username, node);
+        root = insert(root, node);
+    }
+
+    private Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (compare(node, root) < 0) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                root = rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                root = rotateLeft(root);
+            }
+        }
+        root.updateSize();
+        return root;
+    }
+
+    private Node remove(Node root, Node node) {
+        if (root == null) {
+            return null;
+        }
+        int comparison = compare(node, root);
+        if (comparison < 0) {
+            root.left = remove(root.left, node);
+        } else if (comparison > 0) {
+            root.right = remove(root.right, node);
+        } else {
+            return merge(root.left, root.right);
+        }
+        root.updateSize();
+        return root;
+    }
+
+    //all entries of left are ordered before right
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.updateSize();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.updateSize();
+        return right;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.updateSize();
+        left.updateSize();
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.updateSize();
+        right.updateSize();
+        return right;
+    }
+
+    private static long battles(User user) {
+        return (long) user.getBattlesWon() + user.getBattlesLost();
+    }
+
+    //higher elo first, equal elo ordered by username
+    private static int compare(Node a, Node b) {
+        if (a.elo != b.elo) {
+            return Integer.compare(b.elo, a.elo);
+        }
+        return a.username.compareTo(b.username);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node {
+        private final String username;
+        private final String displayName;
+        private final int elo;
+        private final int battlesWon;
+        private final int battlesLost;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(String username, String displayName, int elo, int battlesWon, int battlesLost) {
+            this.username = username;
+            this.displayName = displayName;
+            this.elo = elo;
+            this.battlesWon = battlesWon;
+            this.battlesLost = battlesLost;
+        }
+
+        private void updateSize() {
+            size = 1 + Leaderboard.size(left) + Leaderboard.size(right);
+        }
+
+        private UserScoreboard toScoreboard(int rank) {
+            UserScoreboard userScoreboard = new UserScoreboard();
+            userScoreboard.setDisplayName(displayName);
+            userScoreboard.setElo(elo);
+            userScoreboard.setBattlesWon(battlesWon);
+            userScoreboard.setBattlesLost(battlesLost);
+            userScoreboard.setRank(rank);
+            return userScoreboard;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package app.services;
+
+import app.models.Battle;
+import app.models.UserWithCards;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//pairs waiting players with a similar elo. waiting tickets are kept in buckets of bucketWidth elo, a new player
+//searches the nearby buckets right away, a sweeper retries everyone who still waits with a window that grows with
+//the waiting time and expires tickets after timeoutMillis.
+//there is no global lock: two tickets are paired by moving both from WAITING to CLAIMED with compare-and-set,
+//always the older ticket first, so concurrent matchers never wait on each other and a ticket is paired only once.
+//a matched player stays registered until finished() is called for the match, so they cannot queue again while
+//their battle is still being fought and saved
+public class Matchmaker {
+    private static final int WAITING = 0;
+    private static final int CLAIMED = 1;
+    private static final int MATCHED = 2;
+    private static final int CANCELLED = 3;
+    private static final int TIMED_OUT = 4;
+
+    private final int bucketWidth;
+    private final int initialWindow;
+    private final int windowGrowthPerSecond;
+    private final long timeoutMillis;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<Integer, ConcurrentLinkedQueue<Ticket>> buckets = new ConcurrentHashMap<>();
+    //one ticket per user, waiting or in a battle
+    private final ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final AtomicLong nextTicketId = new AtomicLong();
+    //lowest and highest bucket ever used, the search never leaves this range however wide the window gets
+    private final AtomicInteger lowestBucket = new AtomicInteger(Integer.MAX_VALUE);
+    private final AtomicInteger highestBucket = new AtomicInteger(Integer.MIN_VALUE);
+    private ScheduledExecutorService sweeper;
+
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public Matchmaker(int bucketWidth, int initialWindow, int windowGrowthPerSecond, long timeoutMillis) {
+        this(bucketWidth, initialWindow, windowGrowthPerSecond, timeoutMillis, Clock.systemUTC());
+    }
+
+    Matchmaker(int bucketWidth, int initialWindow, int windowGrowthPerSecond, long timeoutMillis, Clock clock) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucketWidth must be at least 1");
+        }
+        this.bucketWidth = bucketWidth;
+        this.initialWindow = initialWindow;
+        this.windowGrowthPerSecond = windowGrowthPerSecond;
+        this.timeoutMillis = timeoutMillis;
+        this.clock = clock;
+    }
+
+    public static Matchmaker fromSystemProperties() {
+        return new Matchmaker(
+                Integer.getInteger("matchmaking.bucketWidth", 25),
+                Integer.getInteger("matchmaking.initialWindow", 50),
+                Integer.getInteger("matchmaking.windowGrowthPerSecond", 50),
+                Long.getLong("matchmaking.timeout", 60000)
+        );
+    }
+
+    //starts the background sweeper that widens search windows and expires tickets
+    public void start(long sweepIntervalMillis) {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaker-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    //returns the ticket of the user, its match completes once an opponent was found (or with null on timeout),
+    //returns null if the user is already waiting or still in a battle
+    public Ticket enqueue(UserWithCards user) {
+        Ticket ticket = new Ticket(nextTicketId.incrementAndGet(), user, clock.millis());
+        if (tickets.putIfAbsent(user.getUsername(), ticket) != null) {
+            return null;
+        }
+        //published before searching, so of two players entering at the same time at least one sees the other
+        bucket(ticket.getElo()).add(ticket);
+        tryMatch(ticket, initialWindow);
+        return ticket;
+    }
+
+    //removes a waiting ticket, false if it was already matched (or expired)
+    public boolean cancel(Ticket ticket) {
+        while (true) {
+            int state = ticket.state.get();
+            if (state == CLAIMED) {
+                //a matcher holds the ticket for a few instructions, it is either matched or released right after
+                Thread.onSpinWait();
+                continue;
+            }
+            if (state != WAITING) {
+                return false;
+            }
+            if (ticket.state.compareAndSet(WAITING, CANCELLED)) {
+                remove(ticket);
+                cancellations.increment();
+                ticket.match.complete(null);
+                return true;
+            }
+        }
+    }
+
+    //cancels the waiting ticket of the user, false if there is none
+    public boolean cancel(String username) {
+        Ticket ticket = tickets.get(username);
+        return ticket != null && cancel(ticket);
+    }
+
+    //the battle of the match is over and saved, both players may queue again
+    public void finished(Match match) {
+        tickets.remove(match.getPlayer1().getUsername(), match.getPlayer1());
+        tickets.remove(match.getPlayer2().getUsername(), match.getPlayer2());
+    }
+
+    public int waiting() {
+        int waiting = 0;
+        for (Ticket ticket : tickets.values()) {
+            if (!isFinished(ticket.state.get())) {
+                waiting++;
+            }
+        }
+        return waiting;
+    }
+
+    public int inBattle() {
+        int inBattle = 0;
+        for (Ticket ticket : tickets.values()) {
+            if (ticket.state.get() == MATCHED) {
+                inBattle++;
+            }
+        }
+        return inBattle;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("Waiting", waiting());
+        metrics.put("InBattle", inBattle());
+        metrics.put("Matches", matches.sum());
+        metrics.put("Cancellations", cancellations.sum());
+        metrics.put("Timeouts", timeouts.sum());
+        return metrics;
+    }
+
+    //expires old tickets and retries all others with the window their waiting time allows
+    void sweep() {
+        long now = clock.millis();
+        for (ConcurrentLinkedQueue<Ticket> bucket : buckets.values()) {
+            for (Ticket ticket : bucket) {
+                int state = ticket.state.get();
+                if (state != WAITING) {
+                    if (isFinished(state)) {
+                        bucket.remove(ticket);
+                    }
+                    continue;
+                }
+                long waited = now - ticket.enqueuedAt;
+                if (waited >= timeoutMillis) {
+                    if (ticket.state.compareAndSet(WAITING, TIMED_OUT)) {
+                        remove(ticket);
+                        timeouts.increment();
+                        ticket.match.complete(null);
+                    }
+                    continue;
+                }
+                tryMatch(ticket, (int) Math.min(Integer.MAX_VALUE, initialWindow + waited * windowGrowthPerSecond / 1000));
+            }
+        }
+    }
+
+    //searches the own bucket first and then the neighbours further and further away, so the closest elo is preferred
+    private void tryMatch(Ticket seeker, int window) {
+        int home = Math.floorDiv(seeker.getElo(), bucketWidth);
+        long reach = Math.min((window + (long) bucketWidth - 1) / bucketWidth,
+                Math.max(home - (long) lowestBucket.get(), highestBucket.get() - (long) home));
+        for (int distance = 0; distance <= reach; distance++) {
+            if (tryMatchInBucket(seeker, home - distance, window)
+                    || (distance > 0 && tryMatchInBucket(seeker, home + distance, window))) {
+                return;
+            }
+        }
+    }
+
+    //returns true once the seeker is no longer waiting
+    private boolean tryMatchInBucket(Ticket seeker, int bucketKey, int window) {
+        ConcurrentLinkedQueue<Ticket> bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            return seeker.state.get() != WAITING;
+        }
+        for (Ticket candidate : bucket) {
+            if (seeker.state.get() != WAITING) {
+                return true;
+            }
+            if (candidate == seeker) {
+                continue;
+            }
+            int state = candidate.state.get();
+            if (state != WAITING) {
+                //a CLAIMED ticket may be released again, so it stays in the bucket
+                if (isFinished(state)) {
+                    bucket.remove(candidate);
+                }
+                continue;
+            }
+            if (Math.abs((long) candidate.getElo() - seeker.getElo()) <= window && claim(seeker, candidate)) {
+                return true;
+            }
+        }
+        return seeker.state.get() != WAITING;
+    }
+
+    private boolean claim(Ticket a, Ticket b) {
+        //the older ticket is always claimed first, so two matchers working on the same tickets cannot block each other
+        Ticket first = a.id < b.id ? a : b;
+        Ticket second = first == a ? b : a;
+        if (!first.state.compareAndSet(WAITING, CLAIMED)) {
+            return false;
+        }
+        if (!second.state.compareAndSet(WAITING, CLAIMED)) {
+            first.state.set(WAITING);
+            return false;
+        }
+        first.state.set(MATCHED);
+        second.state.set(MATCHED);
+        //both tickets stay in tickets until the battle is finished
+        removeFromBucket(first);
+        removeFromBucket(second);
+        matches.increment();
+
+        //the player who waited longer is player 1
+        Match match = new Match(first, second);
+        first.match.complete(match);
+        second.match.complete(match);
+        return true;
+    }
+
+    private static boolean isFinished(int state) {
+        return state == MATCHED || state == CANCELLED || state == TIMED_OUT;
+    }
+
+    private void remove(Ticket ticket) {
+        tickets.remove(ticket.getUsername(), ticket);
+        removeFromBucket(ticket);
+    }
+
+    private void removeFromBucket(Ticket ticket) {
+        ConcurrentLinkedQueue<Ticket> bucket = buckets.get(Math.floorDiv(ticket.getElo(), bucketWidth));
+        if (bucket != null) {
+            bucket.remove(ticket);
+        }
+    }
+
+    private ConcurrentLinkedQueue<Ticket> bucket(int elo) {
+        int key = Math.floorDiv(elo, bucketWidth);
+        lowestBucket.accumulateAndGet(key, Math::min);
+        highestBucket.accumulateAndGet(key, Math::max);
+        return buckets.computeIfAbsent(key, bucketKey -> new ConcurrentLinkedQueue<>());
+    }
+
+    @Getter
+    public static class Ticket {
+        private final long id;
+        private final UserWithCards user;
+        private final long enqueuedAt;
+        //elo when the ticket was created, the bucket never changes while waiting
+        private final int elo;
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        //completes with the match, or with null if the ticket was cancelled or timed out
+        private final CompletableFuture<Match> match = new CompletableFuture<>();
+
+        private Ticket(long id, UserWithCards user, long enqueuedAt) {
+            this.id = id;
+            this.user = user;
+            this.enqueuedAt = enqueuedAt;
+            this.elo = user.getElo();
+        }
+
+        public String getUsername() {
+            return user.getUsername();
+        }
+    }
+
+    @Getter
+    public static class Match {
+        private final Ticket player1;
+        private final Ticket player2;
+        private final Battle battle = new Battle();
+
+        private Match(Ticket player1, Ticket player2) {
+            this.player1 = player1;
+            this.player2 = player2;
+            battle.setUser1(player1.getUser());
+            battle.setUser2(player2.getUser());
+        }
+    }
+}
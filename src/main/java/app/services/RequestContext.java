@@ -0,0 +1,42 @@
+package app.services;
+
+import app.models.UserWithCards;
+
+import java.util.HashMap;
+
+//identity map for the request that is handled on the current thread: a user is read from the database
+//at most once per request and every caller gets the same object. opened and closed by App.handleRequest,
+//outside of a request nothing is cached
+public final class RequestContext {
+    private static final ThreadLocal<HashMap<String, UserWithCards>> USERS = new ThreadLocal<>();
+
+    private RequestContext() {}
+
+    public static void open() {
+        USERS.set(new HashMap<>());
+    }
+
+    public static void close() {
+        USERS.remove();
+    }
+
+    //returns null if the user was not loaded in this request (or there is no request)
+    public static UserWithCards getUser(String username) {
+        HashMap<String, UserWithCards> users = USERS.get();
+        return users == null ? null : users.get(username);
+    }
+
+    public static void putUser(UserWithCards user) {
+        HashMap<String, UserWithCards> users = USERS.get();
+        if (users != null) {
+            users.put(user.getUsername(), user);
+        }
+    }
+
+    public static void removeUser(String username) {
+        HashMap<String, UserWithCards> users = USERS.get();
+        if (users != null) {
+            users.remove(username);
+        }
+    }
+}
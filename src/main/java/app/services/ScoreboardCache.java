@@ -0,0 +1,62 @@
+package app.services;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+//fully rendered /scores responses per page, tagged with the leaderboard version they were built from.
+//a page is rendered at most once per version, all readers in between share the same byte array
+public class ScoreboardCache {
+    //pages are keyed by offset and limit which come from the client, so the number of pages is capped
+    private static final int MAX_PAGES = 128;
+
+    //part of every ETag, so tags from before a restart (when versions start again at 0) never match
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentHashMap<String, Page> pages = new ConcurrentHashMap<>();
+
+    public interface Renderer {
+        byte[] render() throws IOException;
+    }
+
+    public Page getPage(long version, int offset, int limit, Renderer renderer) throws IOException {
+        String key = offset + ":" + limit;
+        Page page = pages.get(key);
+        if (page != null && page.getVersion() == version) {
+            return page;
+        }
+
+        if (pages.size() >= MAX_PAGES) {
+            pages.clear();
+        }
+        try {
+            //compute blocks concurrent readers of the same page, so only one of them renders it
+            return pages.compute(key, (pageKey, current) -> {
+                if (current != null && current.getVersion() == version) {
+                    return current;
+                }
+                try {
+                    return new Page(version, renderer.render(), "\"scores-" + instanceId + "-" + version + "-" + offset + "-" + limit + "\"");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Getter
+    public static class Page {
+        private final long version;
+        private final byte[] content;
+        private final String etag;
+
+        private Page(long version, byte[] content, String etag) {
+            this.version = version;
+            this.content = content;
+            this.etag = etag;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package app.services;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//size bounded cache with W-TinyLFU admission: new entries go to a small LRU window, when the window is full its
+//oldest entry only replaces the oldest entry of the main segment if it was requested more often (count-min sketch).
+//so a burst of one-time keys cannot push out the hot ones. entries expire ttlMillis after they were written.
+//reads never lock: values come from a ConcurrentHashMap and the read is only recorded in a small lossy buffer,
+//which is applied to the sketch and the LRU order in batches by whoever gets the lock. writes take the lock
+public class TinyLfuCache<K, V> {
+    //the window holds 1% of the entries, at least one
+    private static final int WINDOW_PERCENT = 1;
+    private static final int READ_BUFFER_SIZE = 256;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = 64;
+    //write versions are kept per stripe of keys, two keys of one stripe only make each other skip a put
+    private static final int VERSION_STRIPES = 1024;
+
+    private final int maxSize;
+    private final int windowSize;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    //guarded by lock: the eviction policy, access ordered keys, eldest first
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<K, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Boolean> main = new LinkedHashMap<>(16, 0.75f, true);
+
+    //keys read since the last drain, a read is dropped when the buffer is full (the policy only needs a sample)
+    private final AtomicReferenceArray<K> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readBufferWrites = new AtomicLong();
+    //only written with the lock held
+    private volatile long readBufferReads = 0;
+
+    //incremented by every put and invalidate, see putIfVersion
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TinyLfuCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, Clock.systemUTC());
+    }
+
+    TinyLfuCache(int maxSize, long ttlMillis, Clock clock) {
+        if (maxSize < 2) {
+            throw new IllegalArgumentException("maxSize must be at least 2");
+        }
+        this.maxSize = maxSize;
+        this.windowSize = Math.max(1, maxSize * WINDOW_PERCENT / 100);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    //returns null if the key is not cached or expired
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        recordRead(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (clock.millis() >= entry.expiresAt) {
+            //only this entry, a newer one put in the meantime stays
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            drainReadBuffer();
+            versions.incrementAndGet(stripe(key));
+            store(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //the write version of the key, taken before loading a value that is then cached with putIfVersion
+    public long version(K key) {
+        return versions.get(stripe(key));
+    }
+
+    //caches the value only if the key was not put or invalidated since version was taken, so a value loaded before
+    //a concurrent write never replaces or outlives it. returns false if the value was not cached
+    public boolean putIfVersion(K key, V value, long version) {
+        lock.lock();
+        try {
+            drainReadBuffer();
+            if (versions.get(stripe(key)) != version) {
+                return false;
+            }
+            store(key, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            versions.incrementAndGet(stripe(key));
+            entries.remove(key);
+            window.remove(key);
+            main.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("MaxSize", maxSize);
+        metrics.put("Size", size());
+        metrics.put("Hits", hitCount);
+        metrics.put("Misses", missCount);
+        metrics.put("HitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        metrics.put("Evictions", evictions.sum());
+        return metrics;
+    }
+
+    private void recordRead(K key) {
+        long write = readBufferWrites.get();
+        if (write - readBufferReads >= READ_BUFFER_SIZE) {
+            tryDrainReadBuffer();
+            return;
+        }
+        //a reader that loses the race drops its read
+        if (readBufferWrites.compareAndSet(write, write + 1)) {
+            readBuffer.set((int) (write & READ_BUFFER_MASK), key);
+            if (write + 1 - readBufferReads >= DRAIN_THRESHOLD) {
+                tryDrainReadBuffer();
+            }
+        }
+    }
+
+    //readers never wait, if someone else holds the lock the buffer is drained later
+    private void tryDrainReadBuffer() {
+        if (lock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    //lock must be held
+    private void drainReadBuffer() {
+        long reads = readBufferReads;
+        long writes = readBufferWrites.get();
+        while (reads < writes) {
+            K key = readBuffer.getAndSet((int) (reads & READ_BUFFER_MASK), null);
+            if (key == null) {
+                //claimed but not written yet, picked up by the next drain
+                break;
+            }
+            sketch.increment(key);
+            //get moves the key to the end of the access order
+            if (window.get(key) == null) {
+                main.get(key);
+            }
+            reads++;
+        }
+        readBufferReads = reads;
+    }
+
+    //lock must be held
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, clock.millis() + ttlMillis));
+        if (main.get(key) != null || window.get(key) != null) {
+            return;
+        }
+        window.put(key, Boolean.TRUE);
+        if (window.size() > windowSize) {
+            evictFromWindow();
+        }
+    }
+
+    //lock must be held
+    private void evictFromWindow() {
+        Iterator<K> windowIterator = window.keySet().iterator();
+        K candidate = windowIterator.next();
+        windowIterator.remove();
+
+        if (main.size() < maxSize - windowSize) {
+            main.put(candidate, Boolean.TRUE);
+            return;
+        }
+
+        Iterator<K> mainIterator = main.keySet().iterator();
+        K victim = mainIterator.next();
+        if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+            mainIterator.remove();
+            entries.remove(victim);
+            main.put(candidate, Boolean.TRUE);
+        } else {
+            entries.remove(candidate);
+        }
+        //either the victim or the candidate is dropped
+        evictions.increment();
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (VERSION_STRIPES - 1);
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    //count-min sketch with 4 rows, all counters are halved after 10 * maxSize increments so old popularity fades
+    private static class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final int[] counters;
+        private final int mask;
+        private final int resetAfter;
+        private int increments = 0;
+
+        private FrequencySketch(int maxSize) {
+            //about four counters per entry and row keeps the estimate of rarely used keys close to their real count
+            int width = Integer.highestOneBit(Math.max(16, maxSize) * 8 - 1);
+            this.counters = new int[DEPTH * width];
+            this.mask = width - 1;
+            this.resetAfter = 10 * maxSize;
+        }
+
+        private void increment(Object key) {
+            int hash = key.hashCode();
+            for (int row = 0; row < DEPTH; row++) {
+                counters[row * (mask + 1) + index(hash, row)]++;
+            }
+            if (++increments >= resetAfter) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>>= 1;
+                }
+                increments = 0;
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[row * (mask + 1) + index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ (hash >>> 16)) * SEEDS[row];
+            h ^= h >>> 17;
+            h *= 0xED5AD4BB;
+            h ^= h >>> 11;
+            return h & mask;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package app.services;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//issues and verifies signed session tokens without a database lookup.
+//token format: keyId.issuedAt.expiresAt.base64url(username).base64url(HMAC-SHA256 of the first four parts)
+//the current key signs new tokens, all configured keys are accepted so keys can be rotated without logging everyone out
+public class TokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+    //old "username-mtcgToken" tokens
+    private static final String LEGACY_SUFFIX = "-mtcgToken";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    //Mac is not thread safe, every thread gets its own instance per key
+    private final Map<String, ThreadLocal<Mac>> macs = new LinkedHashMap<>();
+    private final String currentKeyId;
+    private final long ttlMillis;
+    private final boolean acceptLegacyTokens;
+    private final Clock clock;
+
+    public TokenService(Map<String, byte[]> keys, String currentKeyId, long ttlMillis, boolean acceptLegacyTokens) {
+        this(keys, currentKeyId, ttlMillis, acceptLegacyTokens, Clock.systemUTC());
+    }
+
+    public TokenService(Map<String, byte[]> keys, String currentKeyId, long ttlMillis, boolean acceptLegacyTokens, Clock clock) {
+        if (!keys.containsKey(currentKeyId)) {
+            throw new IllegalArgumentException("unknown current key id " + currentKeyId);
+        }
+        for (Map.Entry<String, byte[]> key : keys.entrySet()) {
+            if (key.getKey().isEmpty() || key.getKey().contains(".")) {
+                throw new IllegalArgumentException("invalid key id " + key.getKey());
+            }
+            SecretKeySpec secretKey = new SecretKeySpec(key.getValue(), ALGORITHM);
+            macs.put(key.getKey(), ThreadLocal.withInitial(() -> createMac(secretKey)));
+        }
+        this.currentKeyId = currentKeyId;
+        this.ttlMillis = ttlMillis;
+        this.acceptLegacyTokens = acceptLegacyTokens;
+        this.clock = clock;
+    }
+
+    //keys come from auth.token.keys ("keyId:base64Secret,keyId:base64Secret"), the one named by auth.token.currentKey signs.
+    //without configured keys a random key is used, so tokens do not survive a restart
+    public static TokenService fromSystemProperties() {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        String configuredKeys = System.getProperty("auth.token.keys", "");
+        for (String configuredKey : configuredKeys.split(",")) {
+            if (configuredKey.isBlank()) {
+                continue;
+            }
+            int separator = configuredKey.indexOf(':');
+            if (separator == -1) {
+                throw new IllegalArgumentException("auth.token.keys entries must look like keyId:base64Secret");
+            }
+            keys.put(configuredKey.substring(0, separator).trim(), Base64.getDecoder().decode(configuredKey.substring(separator + 1).trim()));
+        }
+
+        String currentKeyId;
+        if (keys.isEmpty()) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            currentKeyId = "generated";
+            keys.put(currentKeyId, secret);
+        } else {
+            currentKeyId = System.getProperty("auth.token.currentKey", keys.keySet().iterator().next());
+        }
+
+        return new TokenService(
+                keys,
+                currentKeyId,
+                Long.getLong("auth.token.ttl", 24 * 60 * 60 * 1000L),
+                Boolean.getBoolean("auth.token.acceptLegacy")
+        );
+    }
+
+    public String issue(String username) {
+        long issuedAt = clock.millis();
+        String payload = currentKeyId + "." + issuedAt + "." + (issuedAt + ttlMillis) + "."
+                + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(sign(currentKeyId, payload));
+    }
+
+    //returns the username of a valid, unexpired token, otherwise null
+    public String verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int signatureStart = token.lastIndexOf('.');
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 5) {
+            return null;
+        }
+
+        String keyId = parts[0];
+        if (!macs.containsKey(keyId)) {
+            return null;
+        }
+
+        try {
+            long expiresAt = Long.parseLong(parts[2]);
+            byte[] signature = DECODER.decode(parts[4]);
+            byte[] expectedSignature = sign(keyId, token.substring(0, signatureStart));
+
+            //constant time, the position of the first wrong byte must not leak through timing
+            if (!MessageDigest.isEqual(expectedSignature, signature)) {
+                return null;
+            }
+            if (clock.millis() >= expiresAt) {
+                return null;
+            }
+            return new String(DECODER.decode(parts[3]), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            //not a number or not base64
+            return null;
+        }
+    }
+
+    //username of an old "username-mtcgToken" token if those are still accepted, otherwise null.
+    //such tokens are not signed, the caller has to check that the user exists
+    public String legacyUsername(String token) {
+        if (!acceptLegacyTokens || token == null || !token.endsWith(LEGACY_SUFFIX)) {
+            return null;
+        }
+        return token.substring(0, token.length() - LEGACY_SUFFIX.length());
+    }
+
+    private byte[] sign(String keyId, String payload) {
+        return macs.get(keyId).get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Mac createMac(SecretKeySpec secretKey) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
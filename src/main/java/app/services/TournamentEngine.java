@@ -0,0 +1,222 @@
+package app.services;
+
+import app.models.Battle;
+import app.models.BattleLog;
+import app.models.Tournament;
+import app.models.TournamentMatch;
+import app.models.UserWithCards;
+import app.repositories.BattleRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//runs knockout tournaments with the normal battle rules. the bracket is seeded by elo (the best players get the byes
+//and meet as late as possible), all battles of a round run at the same time on the tournament executor and the
+//round is saved in one transaction once its last battle is over, then the winners play the next round.
+//tournaments only live in memory, a restart loses the ones that did not finish (their saved rounds stay).
+//finished, cancelled and failed tournaments are dropped retentionMillis after they ended
+public class TournamentEngine {
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 4096;
+    //a drawn match is fought again, if it stays drawn player1 advances
+    private static final int MAX_REMATCHES = 3;
+
+    private final BattleRepository battleRepository;
+    private final Executor tournamentExecutor;
+    private final long retentionMillis;
+    private final Clock clock;
+    private final ConcurrentHashMap<Long, Tournament> tournaments = new ConcurrentHashMap<>();
+    private final AtomicLong nextTournamentId = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+
+    public TournamentEngine(BattleRepository battleRepository, Executor tournamentExecutor, long retentionMillis) {
+        this(battleRepository, tournamentExecutor, retentionMillis, Clock.systemUTC());
+    }
+
+    TournamentEngine(BattleRepository battleRepository, Executor tournamentExecutor, long retentionMillis, Clock clock) {
+        this.battleRepository = battleRepository;
+        this.tournamentExecutor = tournamentExecutor;
+        this.retentionMillis = retentionMillis;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tournament-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //startsAt null: the tournament waits for start(), otherwise it starts on its own at that time
+    public Tournament create(String name, int maxPlayers, Instant startsAt) {
+        if (maxPlayers < MIN_PLAYERS || maxPlayers > MAX_PLAYERS) {
+            throw new IllegalArgumentException("maxPlayers must be between " + MIN_PLAYERS + " and " + MAX_PLAYERS);
+        }
+        Tournament tournament = new Tournament(nextTournamentId.incrementAndGet(), name, maxPlayers, startsAt);
+        tournaments.put(tournament.getId(), tournament);
+        if (startsAt != null) {
+            long delay = Math.max(0, startsAt.toEpochMilli() - clock.millis());
+            scheduler.schedule(() -> start(tournament), delay, TimeUnit.MILLISECONDS);
+        }
+        return tournament;
+    }
+
+    public Tournament get(long tournamentId) {
+        return tournaments.get(tournamentId);
+    }
+
+    public List<Tournament> getAll() {
+        List<Tournament> all = new ArrayList<>(tournaments.values());
+        all.sort(Comparator.comparingLong(Tournament::getId));
+        return all;
+    }
+
+    //the player enters with the deck they have now, later deck changes do not count for this tournament
+    public Tournament.Registration register(Tournament tournament, UserWithCards user) {
+        return tournament.register(fighter(user));
+    }
+
+    //closes the registration and plays the tournament, the future completes once it is over.
+    //returns null if the tournament was already started
+    public CompletableFuture<Tournament> start(Tournament tournament) {
+        List<UserWithCards> players = tournament.start();
+        if (players == null) {
+            return null;
+        }
+        if (players.isEmpty()) {
+            ended(tournament);
+            return CompletableFuture.completedFuture(tournament);
+        }
+        //the first round is started from the tournament executor too, the caller does not fight overflowing battles
+        return CompletableFuture.supplyAsync(() -> seed(players), tournamentExecutor)
+                .thenCompose(bracket -> playRound(tournament, bracket))
+                .handle((ignored, e) -> {
+                    if (e != null) {
+                        e.printStackTrace();
+                        tournament.fail("the tournament was stopped, a round could not be saved");
+                    }
+                    ended(tournament);
+                    return tournament;
+                });
+    }
+
+    private void ended(Tournament tournament) {
+        scheduler.schedule(() -> tournaments.remove(tournament.getId()), retentionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //players is the bracket in order, every two neighbours play each other, null is a bye
+    private CompletableFuture<Void> playRound(Tournament tournament, List<UserWithCards> players) {
+        List<TournamentMatch> matches = new ArrayList<>(players.size() / 2);
+        for (int i = 0; i < players.size(); i += 2) {
+            matches.add(new TournamentMatch(players.get(i), players.get(i + 1)));
+        }
+        tournament.addRound(matches);
+
+        List<CompletableFuture<List<BattleLog>>> battles = new ArrayList<>(matches.size());
+        for (TournamentMatch match : matches) {
+            if (match.isBye()) {
+                tournament.matchPlayed(match, match.getPlayer1(), 0);
+                battles.add(CompletableFuture.completedFuture(List.of()));
+            } else {
+                battles.add(CompletableFuture.supplyAsync(() -> play(tournament, match), tournamentExecutor));
+            }
+        }
+
+        //runs on the thread of the last battle of the round
+        return CompletableFuture.allOf(battles.toArray(new CompletableFuture<?>[0])).thenCompose(ignored -> {
+            saveRound(tournament, matches, battles);
+
+            List<UserWithCards> winners = new ArrayList<>(matches.size());
+            for (TournamentMatch match : matches) {
+                winners.add(match.getWinner());
+            }
+            if (winners.size() == 1) {
+                tournament.finish(winners.get(0).getUsername());
+                return CompletableFuture.completedFuture(null);
+            }
+            return playRound(tournament, winners);
+        });
+    }
+
+    //every battle starts from the registered decks, nothing of the players is changed here
+    private List<BattleLog> play(Tournament tournament, TournamentMatch match) {
+        List<BattleLog> battleLogs = new ArrayList<>(1);
+        BattleLog battleLog;
+        do {
+            Battle battle = new Battle();
+            battle.setUser1(fighter(match.getPlayer1()));
+            battle.setUser2(fighter(match.getPlayer2()));
+            battle.startBattle();
+            battleLog = battle.getBattleLog();
+            battleLogs.add(battleLog);
+        } while (battleLog.getWinner() == BattleLog.DRAW && battleLogs.size() <= MAX_REMATCHES);
+
+        //player1 is the higher seed in the first round and the winner of the upper match after that
+        UserWithCards winner = battleLog.getWinner() == BattleLog.USER2 ? match.getPlayer2() : match.getPlayer1();
+        tournament.matchPlayed(match, winner, battleLogs.size());
+        return battleLogs;
+    }
+
+    private void saveRound(Tournament tournament, List<TournamentMatch> matches, List<CompletableFuture<List<BattleLog>>> battles) {
+        List<BattleLog> battleLogs = new ArrayList<>();
+        for (CompletableFuture<List<BattleLog>> matchBattles : battles) {
+            battleLogs.addAll(matchBattles.join());
+        }
+        long[] savedIds = battleRepository.settleRound(battleLogs);
+
+        //the last battle of a match decided it
+        long[] battleIds = new long[matches.size()];
+        int saved = 0;
+        for (int i = 0; i < battleIds.length; i++) {
+            saved += battles.get(i).join().size();
+            battleIds[i] = matches.get(i).isBye() ? 0 : savedIds[saved - 1];
+        }
+        tournament.roundSaved(matches, battleIds);
+    }
+
+    //first round of the bracket: the players sorted by elo (earlier registration first on the same elo) in the
+    //order of the standard seeding, missing players of the next power of two are byes
+    static List<UserWithCards> seed(List<UserWithCards> players) {
+        List<UserWithCards> ranked = new ArrayList<>(players);
+        ranked.sort(Comparator.comparingInt(UserWithCards::getElo).reversed());
+        int[] order = seedOrder(Integer.highestOneBit(ranked.size() - 1) << 1);
+        List<UserWithCards> bracket = new ArrayList<>(order.length);
+        for (int seed : order) {
+            bracket.add(seed <= ranked.size() ? ranked.get(seed - 1) : null);
+        }
+        return bracket;
+    }
+
+    //1-based seeds in bracket order, seed s plays size + 1 - s in the first round: 1 8 4 5 2 7 3 6 for 8.
+    //a lower seed always comes first in its pair
+    static int[] seedOrder(int size) {
+        int[] order = {1};
+        while (order.length < size) {
+            int[] next = new int[order.length * 2];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = next.length + 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    //username, elo and a copy of the deck, battles move cards between the decks of their players
+    private static UserWithCards fighter(UserWithCards user) {
+        UserWithCards fighter = new UserWithCards();
+        fighter.setUsername(user.getUsername());
+        fighter.setElo(user.getElo());
+        fighter.setDeck(new ArrayList<>(user.getDeck()));
+        fighter.setStack(new ArrayList<>());
+        return fighter;
+    }
+}
@@ -4,6 +4,8 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.charset.StandardCharsets;
+
 public enum ContentType {
     HTML("text/html"),
     TEXT("text/plain"),
@@ -12,8 +14,13 @@ public enum ContentType {
     @Getter
     @Setter(AccessLevel.PRIVATE)
     private String type;
+    //"Content-Type: <type>\r\n" encoded once so responses can copy it as is
+    @Getter
+    @Setter(AccessLevel.PRIVATE)
+    private byte[] header;
 
     ContentType(String type) {
         setType(type);
+        setHeader(("Content-Type: " + type + "\r\n").getBytes(StandardCharsets.US_ASCII));
     }
 }
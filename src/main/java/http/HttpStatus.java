@@ -4,15 +4,20 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.charset.StandardCharsets;
+
 public enum HttpStatus {
     OK(200, "OK"),
     CREATED(201, "CREATED"),
+    NOT_MODIFIED(304, "Not Modified"),
     BAD_REQUEST(400, "Bad Request"),
     UNAUTHORIZED(401, "Access Token Is Missing Or Invalid"),
     FORBIDDEN(403, "No Acquired Rights On These Elements"),
     NOT_FOUND(404, "Not Found"),
+    REQUEST_TIMEOUT(408, "Request Timeout"),
     INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
-    CONFLICT(409, "Conflict");
+    CONFLICT(409, "Conflict"),
+    SERVICE_UNAVAILABLE(503, "Service Unavailable");
 
     @Getter
     @Setter(AccessLevel.PRIVATE)
@@ -20,9 +25,14 @@ public enum HttpStatus {
     @Getter
     @Setter(AccessLevel.PRIVATE)
     private String message;
+    //"HTTP/1.1 <code> <message>\r\n" encoded once so responses can copy it as is
+    @Getter
+    @Setter(AccessLevel.PRIVATE)
+    private byte[] statusLine;
 
     HttpStatus(int code, String message) {
         setCode(code);
         setMessage(message);
+        setStatusLine(("HTTP/1.1 " + code + " " + message + "\r\n").getBytes(StandardCharsets.US_ASCII));
     }
 }
@@ -0,0 +1,8 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+
+//handler that completes its response later (e.g. after waiting for another player) without blocking the request thread
+public interface AsyncRouteHandler {
+    CompletableFuture<Response> handle(Request request, RouteMatch match);
+}
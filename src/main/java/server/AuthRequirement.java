@@ -0,0 +1,29 @@
+package server;
+
+//who may call a route, checked against the username the request was authenticated as
+public enum AuthRequirement {
+    //anyone, also without a token
+    NONE,
+    //any logged-in user
+    USER,
+    //only the admin user
+    ADMIN,
+    //the user named by the {username} path parameter or the admin
+    SELF_OR_ADMIN;
+
+    public static final String ADMIN_USERNAME = "admin";
+
+    public boolean allows(String username, RouteMatch match) {
+        switch (this) {
+            case USER:
+                return username != null;
+            case ADMIN:
+                return ADMIN_USERNAME.equals(username);
+            case SELF_OR_ADMIN:
+                return username != null && (username.equals(match.getParameter("username")) || ADMIN_USERNAME.equals(username));
+            case NONE:
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package server;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+//state of a single non-blocking client connection, owned by one EventLoop
+@Getter(AccessLevel.PACKAGE)
+@Setter(AccessLevel.PACKAGE)
+class ClientConnection {
+    private SocketChannel channel;
+    private RequestParser requestParser;
+    //encoded response, written with one gathering write per writable event
+    private ByteBuffer[] writeBuffers;
+    //whether the connection stays open after writeBuffers have been sent
+    private boolean keepAlive;
+    //a request of this connection is being handled by the worker pool
+    private boolean busy;
+    private int handledRequests = 0;
+    private long lastActivity = System.currentTimeMillis();
+
+    ClientConnection(SocketChannel channel) {
+        setChannel(channel);
+        setRequestParser(new RequestParser());
+    }
+
+    //reads what is available on the channel, returns -1 on end of stream
+    int read() throws IOException {
+        return getChannel().read(getRequestParser().getWritableBuffer());
+    }
+
+    //returns true once the whole response has been written
+    boolean write() throws IOException {
+        return Response.writeOnce(getChannel(), getWriteBuffers());
+    }
+
+    //returns the next complete request or null if more bytes are needed
+    Request nextRequest() throws IOException {
+        return getRequestParser().nextRequest();
+    }
+}
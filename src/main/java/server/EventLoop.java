@@ -0,0 +1,249 @@
+package server;
+
+import http.ContentType;
+import http.HttpStatus;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+//single selector thread that reads requests, hands them to the worker pool and writes the responses back
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+class EventLoop implements Runnable {
+    private Selector selector;
+    private ServerApp app;
+    private ExecutorService workerPool;
+    //work that has to run on the event loop thread (registrations, interest changes)
+    private Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    //set on the loop that accepts, which hands new channels to all loops round robin
+    private ServerSocketChannel serverChannel;
+    private EventLoop[] eventLoops;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int nextEventLoop = 0;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long lastIdleCheck = System.currentTimeMillis();
+
+    EventLoop(ServerApp app, ExecutorService workerPool) throws IOException {
+        setApp(app);
+        setWorkerPool(workerPool);
+        setSelector(Selector.open());
+    }
+
+    void acceptFrom(ServerSocketChannel serverChannel, EventLoop[] eventLoops) throws ClosedChannelException {
+        setServerChannel(serverChannel);
+        setEventLoops(eventLoops);
+        serverChannel.register(getSelector(), SelectionKey.OP_ACCEPT);
+    }
+
+    void register(SocketChannel channel) {
+        runOnLoop(() -> {
+            try {
+                channel.configureBlocking(false);
+                channel.register(getSelector(), SelectionKey.OP_READ, new ClientConnection(channel));
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeQuietly(channel);
+            }
+        });
+    }
+
+    public void run() {
+        while (true) {
+            try {
+                getSelector().select(1000);
+
+                Runnable task;
+                while ((task = getPendingTasks().poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = getSelector().selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    } else if (key.isWritable()) {
+                        write(key);
+                    }
+                }
+
+                closeIdleConnections();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = getServerChannel().accept()) != null) {
+            getEventLoops()[nextEventLoop].register(channel);
+            nextEventLoop = (nextEventLoop + 1) % getEventLoops().length;
+        }
+    }
+
+    private void read(SelectionKey key) {
+        ClientConnection connection = (ClientConnection) key.attachment();
+        try {
+            if (connection.read() == -1) {
+                close(key);
+                return;
+            }
+            connection.setLastActivity(System.currentTimeMillis());
+            handleNextRequest(key, connection);
+        } catch (IOException e) {
+            close(key);
+        }
+    }
+
+    private void handleNextRequest(SelectionKey key, ClientConnection connection) {
+        Request request;
+        try {
+            request = connection.nextRequest();
+        } catch (IOException | IllegalArgumentException e) {
+            //malformed or oversized request
+            respond(key, new Response(
+                    HttpStatus.BAD_REQUEST,
+                    ContentType.TEXT,
+                    ""
+            ), false);
+            return;
+        }
+
+        if (request == null) {
+            key.interestOps(SelectionKey.OP_READ); //wait for the rest of the request
+            return;
+        }
+
+        //stop reading until the response for this request has been written
+        key.interestOps(0);
+        connection.setBusy(true);
+        connection.setHandledRequests(connection.getHandledRequests() + 1);
+        dispatch(key, request, request.isKeepAlive() && connection.getHandledRequests() < RequestHandler.MAX_REQUESTS_PER_CONNECTION);
+    }
+
+    private void dispatch(SelectionKey key, Request request, boolean keepAlive) {
+        try {
+            getWorkerPool().execute(() -> {
+                CompletableFuture<Response> response;
+                try {
+                    response = getApp().handleRequestAsync(request);
+                } catch (RuntimeException e) {
+                    response = CompletableFuture.failedFuture(e);
+                }
+                //an asynchronous response (e.g. a battle waiting for an opponent) frees the worker right away,
+                //the connection stays busy until the response is written
+                response.whenComplete((result, e) -> {
+                    if (e != null) {
+                        e.printStackTrace();
+                        result = new Response(
+                                HttpStatus.INTERNAL_SERVER_ERROR,
+                                ContentType.JSON,
+                                "{ \"error\": \"internal server error\", \"data\": null }"
+                        );
+                    }
+                    respond(key, result, keepAlive);
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            //worker queue is full, shed load instead of queueing without bound
+            respond(key, new Response(
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    ContentType.JSON,
+                    "{ \"error\": \"server is busy\", \"data\": null }"
+            ), false);
+        }
+    }
+
+    //may be called from any thread
+    private void respond(SelectionKey key, Response response, boolean keepAlive) {
+        ClientConnection connection = (ClientConnection) key.attachment();
+        connection.setKeepAlive(keepAlive);
+        connection.setWriteBuffers(response.encode(keepAlive));
+        runOnLoop(() -> {
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        });
+    }
+
+    private void write(SelectionKey key) {
+        ClientConnection connection = (ClientConnection) key.attachment();
+        try {
+            if (!connection.write()) {
+                return;
+            }
+
+            if (!connection.isKeepAlive()) {
+                close(key);
+                return;
+            }
+            connection.setWriteBuffers(null);
+            connection.setBusy(false);
+            connection.setLastActivity(System.currentTimeMillis());
+            //a pipelined request may already be in the read buffer
+            handleNextRequest(key, connection);
+        } catch (IOException e) {
+            close(key);
+        }
+    }
+
+    private void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        if (now - lastIdleCheck < 1000) {
+            return;
+        }
+        lastIdleCheck = now;
+
+        for (SelectionKey key : getSelector().keys()) {
+            if (!(key.attachment() instanceof ClientConnection)) {
+                continue;
+            }
+            ClientConnection connection = (ClientConnection) key.attachment();
+            if (!connection.isBusy() && now - connection.getLastActivity() > RequestHandler.IDLE_TIMEOUT_MILLIS) {
+                close(key);
+            }
+        }
+    }
+
+    private void runOnLoop(Runnable task) {
+        getPendingTasks().add(task);
+        getSelector().wakeup();
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+//strategy for running a RequestHandler per accepted connection
+public enum ExecutionMode {
+    //a fresh platform thread per connection (original behaviour)
+    PLATFORM,
+    //a fixed number of platform threads, further connections wait in the queue
+    FIXED_POOL,
+    //a virtual thread per connection, needs a Java 21 runtime
+    VIRTUAL;
+
+    public Executor createExecutor(int poolSize) {
+        switch (this) {
+            case FIXED_POOL:
+                return Executors.newFixedThreadPool(poolSize);
+            case VIRTUAL:
+                return createVirtualThreadExecutor();
+            case PLATFORM:
+            default:
+                return task -> new Thread(task).start();
+        }
+    }
+
+    private static Executor createVirtualThreadExecutor() {
+        //looked up reflectively so the project still compiles for Java 17
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("virtual threads need a Java 21 runtime, running on " + Runtime.version(), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package server;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//selector based alternative to Server: a few event loop threads own all sockets,
+//only complete requests are handed to a bounded worker pool
+@Getter(AccessLevel.PRIVATE)
+@Setter(AccessLevel.PRIVATE)
+public class NioServer {
+    private ServerApp app;
+    private int port;
+    private int eventLoopCount;
+    private int workerCount;
+    private int workerQueueSize;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workerPool;
+
+    public NioServer(ServerApp app, int port) {
+        this(app, port, 1, Runtime.getRuntime().availableProcessors() * 4, 10_000);
+    }
+
+    public NioServer(ServerApp app, int port, int eventLoopCount, int workerCount, int workerQueueSize) {
+        setApp(app);
+        setPort(port);
+        setEventLoopCount(eventLoopCount);
+        setWorkerCount(workerCount);
+        setWorkerQueueSize(workerQueueSize);
+    }
+
+    public void start() throws IOException {
+        setServerChannel(ServerSocketChannel.open());
+        getServerChannel().bind(new InetSocketAddress(getPort()));
+        getServerChannel().configureBlocking(false);
+
+        //requests beyond the queue size are rejected with 503 instead of piling up
+        setWorkerPool(new ThreadPoolExecutor(
+                getWorkerCount(),
+                getWorkerCount(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(getWorkerQueueSize())
+        ));
+
+        EventLoop[] eventLoops = new EventLoop[getEventLoopCount()];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(getApp(), getWorkerPool());
+        }
+        eventLoops[0].acceptFrom(getServerChannel(), eventLoops);
+
+        for (int i = 1; i < eventLoops.length; i++) {
+            new Thread(eventLoops[i], "event-loop-" + i).start();
+        }
+        //the first event loop runs on the calling thread, just like Server.run()
+        Thread.currentThread().setName("event-loop-0");
+        eventLoops[0].run();
+    }
+}
@@ -5,11 +5,13 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.util.Locale;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 
 
+//built by RequestParser
 @Getter
 @Setter(AccessLevel.PROTECTED)
 public class Request {
@@ -19,96 +21,70 @@ public class Request {
     private String contentType;
     private Integer contentLength;
     private String token;
-    private String body = "";
-
-    @Setter(AccessLevel.NONE)
+    //set by the app once the token is verified, null for anonymous requests
+    @Setter
+    private String username;
+    private String httpVersion;
+    //ETags of the representation the client already has
+    private String ifNoneMatch;
+    //whether the client wants to send further requests over the same connection
+    private boolean keepAlive = false;
+
+    //raw body as received, decoded to a String only when a caller asks for it
     @Getter(AccessLevel.NONE)
-    private final String CONTENT_TYPE = "Content-Type: ";
-    @Setter(AccessLevel.NONE)
+    private byte[] bodyBytes = new byte[0];
     @Getter(AccessLevel.NONE)
-    private final String CONTENT_LENGTH = "Content-Length: ";
-    private final String AUTHORIZATION = "Authorization: Bearer ";
-
-    public Request(BufferedReader inputStream) {
-        buildRequest(inputStream);
-    }
-
-    private void buildRequest(BufferedReader inputStream) {
-        try {
-            String line = inputStream.readLine();
-
-            if (line != null) {
-                String[] splitFirstLine = line.split(" ");
-                Boolean hasParams = splitFirstLine[1].indexOf("?") != -1;
-
-
-                setMethod(getMethodFromInputLine(splitFirstLine));
-                setPathname(getPathnameFromInputLine(splitFirstLine, hasParams));
-                setParams(getParamsFromInputLine(splitFirstLine, hasParams));
+    @Setter(AccessLevel.NONE)
+    private String body;
 
-                while (!line.isEmpty()) {
-                    line = inputStream.readLine();
-                    if (line.startsWith(CONTENT_LENGTH)) {
-                        setContentLength(getContentLengthFromInputLine(line));
-                    }
-                    if (line.startsWith(CONTENT_TYPE)) {
-                        setContentType(getContentTypeFromInputLine(line));
-                    }
-                    if(line.startsWith(AUTHORIZATION)) {
-                        setToken(getTokenFromInputLine(line));
-                    }
-                }
+    Request() {}
 
-                if (getMethod() == Method.POST || getMethod() == Method.PUT) {
-                    int asciChar;
-                    if(getContentLength() != null){
-                        for (int i = 0; i < getContentLength(); i++) {
-                            asciChar = inputStream.read();
-                            String body = getBody();
-                            setBody(body + ((char) asciChar));
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    public String getBody() {
+        if (body == null) {
+            body = new String(bodyBytes, StandardCharsets.UTF_8);
         }
+        return body;
     }
 
-
-    private Method getMethodFromInputLine(String[] splitFirstLine) {
-        return Method.valueOf(splitFirstLine[0].toUpperCase(Locale.ROOT));
+    public byte[] getBodyBytes() {
+        return bodyBytes;
     }
 
-    private String getPathnameFromInputLine(String[] splitFirstLine, Boolean hasParams) {
-        if (hasParams) {
-            return splitFirstLine[1].split("\\?")[0];
+    //value of the first name=value pair in the query string, null if there is none
+    public String getQueryParameter(String name) {
+        if (params == null || params.isEmpty()) {
+            return null;
         }
-
-        return splitFirstLine[1];
-    }
-
-
-    private String getParamsFromInputLine(String[] splittedFirstLine, Boolean hasParams) {
-        if (hasParams) {
-            return splittedFirstLine[1].split("\\?")[1];
+        for (String param : params.split("&")) {
+            int separator = param.indexOf('=');
+            String paramName = separator == -1 ? param : param.substring(0, separator);
+            if (URLDecoder.decode(paramName, StandardCharsets.UTF_8).equals(name)) {
+                return separator == -1 ? "" : URLDecoder.decode(param.substring(separator + 1), StandardCharsets.UTF_8);
+            }
         }
-
-        return "";
+        return null;
     }
 
-    private Integer getContentLengthFromInputLine(String line) {
-        return Integer.parseInt(line.substring(CONTENT_LENGTH.length()));
-    }
-
-    private String getContentTypeFromInputLine(String line) {
-        return line.substring(CONTENT_TYPE.length());
+    //true if an If-None-Match header value names this ETag (or is *)
+    public static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            //weak comparison is enough for GET
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private String getTokenFromInputLine(String line) {
-        //remove the "Authorization: Bearer " prefix
-        String token = line.substring(AUTHORIZATION.length());
-        //remove the -mtcgToken suffix
-        return token.replace("-mtcgToken", "");
+    //lets Jackson read the body without decoding it to a String first
+    public InputStream getBodyInputStream() {
+        return new ByteArrayInputStream(bodyBytes);
     }
 }
@@ -6,20 +6,24 @@ import http.HttpStatus;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 
 @Getter
 @Setter
 public class RequestHandler implements Runnable {
 
+    //how long a persistent connection may stay idle between two requests
+    static final int IDLE_TIMEOUT_MILLIS = Integer.getInteger("server.keepAlive.timeout", 5000);
+    //after this many requests the connection is closed so a single client cannot hold it forever
+    static final int MAX_REQUESTS_PER_CONNECTION = Integer.getInteger("server.keepAlive.maxRequests", 100);
+
     private Request request;
     private Response response;
-    private PrintWriter outputStream;
-    private BufferedReader inputStream;
+    private InputStream inputStream;
+    private RequestParser requestParser;
     private App app;
     private Socket clientSocket;
 
@@ -31,31 +35,41 @@ public class RequestHandler implements Runnable {
     public void run() {
         try {
 
-            setInputStream(new BufferedReader(new InputStreamReader(clientSocket.getInputStream())));
-            setRequest(new Request(getInputStream()));
-            setOutputStream(new PrintWriter(clientSocket.getOutputStream(), true));
+            getClientSocket().setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            setInputStream(clientSocket.getInputStream());
+            setRequestParser(new RequestParser());
+
+            int handledRequests = 0;
+            boolean keepAlive = true;
+            while (keepAlive) {
+                try {
+                    setRequest(getRequestParser().readRequest(getInputStream()));
+                } catch (IllegalArgumentException e) {
+                    setRequest(null);
+                    setResponse(new Response(
+                            HttpStatus.BAD_REQUEST,
+                            ContentType.TEXT,
+                            ""
+                    ));
+                    getResponse().writeTo(getClientSocket(), false);
+                    break;
+                }
+                if (getRequest() == null) {
+                    break; //client closed the connection
+                }
+                handledRequests++;
 
-            if (request.getPathname() == null) {
-                setResponse(new Response(
-                        HttpStatus.BAD_REQUEST,
-                        ContentType.TEXT,
-                        ""
-                ));
-            } else {
+                keepAlive = request.isKeepAlive() && handledRequests < MAX_REQUESTS_PER_CONNECTION;
                 setResponse(getApp().handleRequest(request));
+                getResponse().writeTo(getClientSocket(), keepAlive);
             }
-            getOutputStream().write(getResponse().build());
+        } catch (SocketTimeoutException e) {
+            //idle keep-alive connection, just close it
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
             try {
-                if (getOutputStream() != null) {
-                    getOutputStream().close();
-                }
-                if (getInputStream() != null) {
-                    getInputStream().close();
-                    getClientSocket().close();
-                }
+                getClientSocket().close();
             } catch (IOException e) {
                 e.printStackTrace();
             }
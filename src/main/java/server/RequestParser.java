@@ -0,0 +1,268 @@
+package server;
+
+import http.Method;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+//incremental HTTP request parser that works directly on the bytes of one reusable buffer per connection,
+//header names are matched byte by byte and the body is copied out in one piece
+class RequestParser {
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    static final int MAX_REQUEST_SIZE = 16 * 1024 * 1024;
+
+    private static final byte[] CONTENT_LENGTH = ascii("content-length");
+    private static final byte[] CONTENT_TYPE = ascii("content-type");
+    private static final byte[] AUTHORIZATION = ascii("authorization");
+    private static final byte[] CONNECTION = ascii("connection");
+    private static final byte[] IF_NONE_MATCH = ascii("if-none-match");
+    private static final byte[] BEARER = ascii("bearer ");
+    private static final byte[] KEEP_ALIVE = ascii("keep-alive");
+    private static final byte[] CLOSE = ascii("close");
+    private static final byte[] HTTP_1_1 = ascii("http/1.1");
+    private static final byte[][] METHODS = new byte[Method.values().length][];
+
+    static {
+        for (Method method : Method.values()) {
+            METHODS[method.ordinal()] = ascii(method.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    //bytes [0, position) are received but not yet consumed
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    //index from where the next search for the end of the headers starts
+    private int scanPosition = 0;
+    //request whose headers are parsed but whose body is still incomplete
+    private Request pendingRequest;
+    private int pendingRequestEnd;
+
+    //returns the buffer to read into, growing it if it is full
+    ByteBuffer getWritableBuffer() throws IOException {
+        if (!buffer.hasRemaining()) {
+            ensureCapacity(buffer.capacity() * 2);
+        }
+        return buffer;
+    }
+
+    //blocking variant: reads from the stream until a complete request is buffered,
+    //returns null if the stream ends before the next request starts
+    Request readRequest(InputStream inputStream) throws IOException {
+        Request request = nextRequest();
+        while (request == null) {
+            ByteBuffer writableBuffer = getWritableBuffer();
+            int read = inputStream.read(writableBuffer.array(), writableBuffer.position(), writableBuffer.remaining());
+            if (read == -1) {
+                if (writableBuffer.position() == 0) {
+                    return null;
+                }
+                throw new EOFException("connection closed in the middle of a request");
+            }
+            writableBuffer.position(writableBuffer.position() + read);
+            request = nextRequest();
+        }
+        return request;
+    }
+
+    //returns the next complete request from the buffer or null if more bytes are needed
+    Request nextRequest() throws IOException {
+        byte[] data = buffer.array();
+        int length = buffer.position();
+
+        if (pendingRequest == null) {
+            int headerEnd = findHeaderEnd(data, length);
+            if (headerEnd == -1) {
+                if (length >= MAX_REQUEST_SIZE) {
+                    throw new IOException("request headers exceed " + MAX_REQUEST_SIZE + " bytes");
+                }
+                return null;
+            }
+
+            pendingRequest = new Request();
+            int contentLength = parseHead(pendingRequest, data, headerEnd);
+            if (contentLength > MAX_REQUEST_SIZE - headerEnd) {
+                throw new IOException("request exceeds " + MAX_REQUEST_SIZE + " bytes");
+            }
+            pendingRequest.setContentLength(contentLength);
+            pendingRequestEnd = headerEnd + contentLength;
+            //make room for the whole body at once instead of doubling the buffer step by step
+            ensureCapacity(pendingRequestEnd);
+            data = buffer.array();
+        }
+
+        if (length < pendingRequestEnd) {
+            return null;
+        }
+
+        Request request = pendingRequest;
+        int bodyStart = pendingRequestEnd - request.getContentLength();
+        request.setBodyBytes(Arrays.copyOfRange(data, bodyStart, pendingRequestEnd));
+
+        //keep pipelined bytes of the next request at the start of the buffer
+        System.arraycopy(data, pendingRequestEnd, data, 0, length - pendingRequestEnd);
+        buffer.position(length - pendingRequestEnd);
+        pendingRequest = null;
+        scanPosition = 0;
+
+        return request;
+    }
+
+    private void ensureCapacity(int capacity) throws IOException {
+        if (capacity <= buffer.capacity()) {
+            return;
+        }
+        if (buffer.capacity() >= MAX_REQUEST_SIZE) {
+            throw new IOException("request exceeds " + MAX_REQUEST_SIZE + " bytes");
+        }
+        ByteBuffer biggerBuffer = ByteBuffer.allocate(Math.min(Math.max(capacity, buffer.capacity() * 2), MAX_REQUEST_SIZE));
+        biggerBuffer.put(buffer.array(), 0, buffer.position());
+        buffer = biggerBuffer;
+    }
+
+    private int findHeaderEnd(byte[] data, int length) {
+        for (int i = Math.max(scanPosition, 3); i < length; i++) {
+            if (data[i] == '\n' && data[i - 1] == '\r' && data[i - 2] == '\n' && data[i - 3] == '\r') {
+                return i + 1;
+            }
+        }
+        scanPosition = Math.max(length - 3, 0);
+        return -1;
+    }
+
+    //parses request line and headers into the request and returns the content length
+    private int parseHead(Request request, byte[] data, int headerEnd) {
+        int lineEnd = indexOf(data, 0, headerEnd, (byte) '\r');
+        parseRequestLine(request, data, lineEnd);
+
+        int contentLength = 0;
+        int lineStart = lineEnd + 2;
+        while (lineStart < headerEnd - 2) {
+            lineEnd = indexOf(data, lineStart, headerEnd, (byte) '\r');
+            int colon = indexOf(data, lineStart, lineEnd, (byte) ':');
+            if (colon != -1) {
+                int valueStart = colon + 1;
+                while (valueStart < lineEnd && data[valueStart] == ' ') {
+                    valueStart++;
+                }
+                int valueEnd = lineEnd;
+                while (valueEnd > valueStart && data[valueEnd - 1] == ' ') {
+                    valueEnd--;
+                }
+
+                if (equalsIgnoreCase(data, lineStart, colon, CONTENT_LENGTH)) {
+                    contentLength = parseContentLength(data, valueStart, valueEnd);
+                } else if (equalsIgnoreCase(data, lineStart, colon, CONTENT_TYPE)) {
+                    request.setContentType(new String(data, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1));
+                } else if (equalsIgnoreCase(data, lineStart, colon, AUTHORIZATION)) {
+                    if (startsWithIgnoreCase(data, valueStart, valueEnd, BEARER)) {
+                        int tokenStart = valueStart + BEARER.length;
+                        request.setToken(new String(data, tokenStart, valueEnd - tokenStart, StandardCharsets.ISO_8859_1));
+                    }
+                } else if (equalsIgnoreCase(data, lineStart, colon, IF_NONE_MATCH)) {
+                    request.setIfNoneMatch(new String(data, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1));
+                } else if (equalsIgnoreCase(data, lineStart, colon, CONNECTION)) {
+                    if (equalsIgnoreCase(data, valueStart, valueEnd, CLOSE)) {
+                        request.setKeepAlive(false);
+                    } else if (equalsIgnoreCase(data, valueStart, valueEnd, KEEP_ALIVE)) {
+                        request.setKeepAlive(true);
+                    }
+                }
+            }
+            lineStart = lineEnd + 2;
+        }
+
+        return contentLength;
+    }
+
+    private void parseRequestLine(Request request, byte[] data, int lineEnd) {
+        int methodEnd = indexOf(data, 0, lineEnd, (byte) ' ');
+        if (methodEnd == -1) {
+            throw new IllegalArgumentException("malformed request line");
+        }
+        request.setMethod(parseMethod(data, methodEnd));
+
+        int targetStart = methodEnd + 1;
+        int targetEnd = indexOf(data, targetStart, lineEnd, (byte) ' ');
+        if (targetEnd == -1) {
+            targetEnd = lineEnd;
+        }
+        int paramsStart = indexOf(data, targetStart, targetEnd, (byte) '?');
+        if (paramsStart == -1) {
+            request.setPathname(new String(data, targetStart, targetEnd - targetStart, StandardCharsets.UTF_8));
+            request.setParams("");
+        } else {
+            request.setPathname(new String(data, targetStart, paramsStart - targetStart, StandardCharsets.UTF_8));
+            request.setParams(new String(data, paramsStart + 1, targetEnd - paramsStart - 1, StandardCharsets.UTF_8));
+        }
+
+        if (targetEnd == lineEnd) {
+            request.setHttpVersion("HTTP/1.0");
+            request.setKeepAlive(false);
+        } else {
+            request.setHttpVersion(new String(data, targetEnd + 1, lineEnd - targetEnd - 1, StandardCharsets.ISO_8859_1));
+            //HTTP/1.1 connections are persistent unless the client asks to close them
+            request.setKeepAlive(equalsIgnoreCase(data, targetEnd + 1, lineEnd, HTTP_1_1));
+        }
+    }
+
+    private Method parseMethod(byte[] data, int methodEnd) {
+        for (Method method : Method.values()) {
+            if (equalsIgnoreCase(data, 0, methodEnd, METHODS[method.ordinal()])) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("unsupported method " + new String(data, 0, methodEnd, StandardCharsets.ISO_8859_1));
+    }
+
+    private int parseContentLength(byte[] data, int from, int to) {
+        if (from == to) {
+            throw new IllegalArgumentException("empty Content-Length");
+        }
+        int contentLength = 0;
+        for (int i = from; i < to; i++) {
+            if (data[i] < '0' || data[i] > '9' || contentLength > MAX_REQUEST_SIZE) {
+                throw new IllegalArgumentException("invalid Content-Length");
+            }
+            contentLength = contentLength * 10 + (data[i] - '0');
+        }
+        return contentLength;
+    }
+
+    private static int indexOf(byte[] data, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //lowerCase has to be lower case ascii
+    private static boolean equalsIgnoreCase(byte[] data, int from, int to, byte[] lowerCase) {
+        return to - from == lowerCase.length && startsWithIgnoreCase(data, from, to, lowerCase);
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] data, int from, int to, byte[] lowerCase) {
+        if (to - from < lowerCase.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            byte b = data[from + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerCase[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -6,27 +6,132 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+
 
 @Getter(AccessLevel.PUBLIC)
 @Setter(AccessLevel.PRIVATE)
 public class Response {
+    private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ETAG = "ETag: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEEP_ALIVE = "\r\nConnection: keep-alive\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLOSE = "\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
     private int statusCode;
     private String statusMessage;
     private String contentType;
     private String content;
+    //validator of the content, sent as ETag header if set
+    private String etag;
+
+    @Getter(AccessLevel.PRIVATE)
+    private HttpStatus httpStatus;
+    @Getter(AccessLevel.PRIVATE)
+    private ContentType contentTypeHeader;
+    //content encoded once, Content-Length is the length of this array and not of the String
+    @Getter(AccessLevel.NONE)
+    private byte[] contentBytes;
 
     public Response(HttpStatus httpStatus, ContentType contentType, String content) {
         setStatusCode(httpStatus.getCode());
         setContentType(contentType.getType());
         setStatusMessage(httpStatus.getMessage());
         setContent(content);
+        setHttpStatus(httpStatus);
+        setContentTypeHeader(contentType);
+    }
+
+    //content that is already encoded (e.g. shared by many responses), it is sent as is and never copied
+    public Response(HttpStatus httpStatus, ContentType contentType, byte[] contentBytes, String etag) {
+        setStatusCode(httpStatus.getCode());
+        setContentType(contentType.getType());
+        setStatusMessage(httpStatus.getMessage());
+        setContentBytes(contentBytes);
+        setEtag(etag);
+        setHttpStatus(httpStatus);
+        setContentTypeHeader(contentType);
+    }
+
+    public String getContent() {
+        if (content == null && contentBytes != null) {
+            setContent(new String(contentBytes, StandardCharsets.UTF_8));
+        }
+        return content;
+    }
+
+    public byte[] getContentBytes() {
+        if (contentBytes == null) {
+            setContentBytes(getContent().getBytes(StandardCharsets.UTF_8));
+        }
+        return contentBytes;
+    }
+
+    //status line and headers in one buffer, the body in a second one, ready for a gathering write
+    protected ByteBuffer[] encode(boolean keepAlive) {
+        byte[] body = getContentBytes();
+        byte[] statusLine = getHttpStatus().getStatusLine();
+        byte[] contentTypeHeader = getContentTypeHeader().getHeader();
+        byte[] contentLength = Integer.toString(body.length).getBytes(StandardCharsets.US_ASCII);
+        byte[] connection = keepAlive ? KEEP_ALIVE : CLOSE;
+        byte[] etag = getEtag() == null ? new byte[0] : getEtag().getBytes(StandardCharsets.US_ASCII);
+        int etagHeaderLength = getEtag() == null ? 0 : ETAG.length + etag.length + CRLF.length;
+
+        ByteBuffer head = ByteBuffer.allocate(
+                statusLine.length + contentTypeHeader.length + etagHeaderLength + CONTENT_LENGTH.length + contentLength.length + connection.length
+        );
+        head.put(statusLine).put(contentTypeHeader);
+        if (getEtag() != null) {
+            head.put(ETAG).put(etag).put(CRLF);
+        }
+        head.put(CONTENT_LENGTH).put(contentLength).put(connection);
+        head.flip();
+
+        //wrap does not copy, a shared body is only read
+        return new ByteBuffer[]{head, ByteBuffer.wrap(body)};
+    }
+
+    protected void writeTo(Socket socket, boolean keepAlive) throws IOException {
+        ByteBuffer[] buffers = encode(keepAlive);
+
+        if (socket.getChannel() != null) {
+            //headers and body leave in one system call, the channel is in blocking mode so this loop rarely repeats
+            writeFully(socket.getChannel(), buffers);
+            return;
+        }
+
+        OutputStream outputStream = socket.getOutputStream();
+        for (ByteBuffer buffer : buffers) {
+            outputStream.write(buffer.array(), buffer.position(), buffer.remaining());
+        }
+        outputStream.flush();
+    }
+
+    static void writeFully(GatheringByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        while (hasRemaining(buffers)) {
+            channel.write(buffers);
+        }
+    }
+
+    //one gathering write for a non-blocking channel, returns true once the whole response has been written.
+    //a write can stop anywhere, also inside the headers
+    static boolean writeOnce(GatheringByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        channel.write(buffers);
+        return !hasRemaining(buffers);
     }
 
-    protected String build() {
-        return "HTTP/1.1 " + getStatusCode() + " " + getStatusMessage() + "\r\n" +
-                "Content-Type: " + getContentType() + "\r\n" +
-                "Content-Length: " + getContent().length() + "\r\n" +
-                "\r\n" +
-                getContent();
+    //the body can be empty (e.g. 304), so every buffer has to be checked and not just the last one
+    static boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package server;
+
+import http.Method;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.CompletableFuture;
+
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class Route {
+    private Method method;
+    private String pattern;
+    private AuthRequirement authRequirement;
+    private RouteHandler handler;
+    //set instead of handler for routes whose response completes later
+    private AsyncRouteHandler asyncHandler;
+
+    public Route(Method method, String pattern, AuthRequirement authRequirement, RouteHandler handler) {
+        setMethod(method);
+        setPattern(pattern);
+        setAuthRequirement(authRequirement);
+        setHandler(handler);
+    }
+
+    public Route(Method method, String pattern, AuthRequirement authRequirement, AsyncRouteHandler asyncHandler) {
+        setMethod(method);
+        setPattern(pattern);
+        setAuthRequirement(authRequirement);
+        setAsyncHandler(asyncHandler);
+    }
+
+    public CompletableFuture<Response> handleAsync(Request request, RouteMatch match) {
+        if (getAsyncHandler() != null) {
+            return getAsyncHandler().handle(request, match);
+        }
+        return CompletableFuture.completedFuture(getHandler().handle(request, match));
+    }
+}
@@ -0,0 +1,5 @@
+package server;
+
+public interface RouteHandler {
+    Response handle(Request request, RouteMatch match);
+}
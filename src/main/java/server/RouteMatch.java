@@ -0,0 +1,29 @@
+package server;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter(AccessLevel.PRIVATE)
+public class RouteMatch {
+    private Route route;
+    //values of the {name} segments of the route pattern
+    private Map<String, String> parameters;
+
+    RouteMatch(Route route, Map<String, String> parameters) {
+        setRoute(route);
+        setParameters(parameters);
+    }
+
+    public String getParameter(String name) {
+        return getParameters().get(name);
+    }
+
+    //only valid for parameters declared as {name:long}, the router already checked the digits
+    public long getLongParameter(String name) {
+        return Long.parseLong(getParameter(name));
+    }
+}
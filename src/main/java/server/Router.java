@@ -0,0 +1,122 @@
+package server;
+
+import http.Method;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+//route table built once at startup: a trie over the path segments, so a lookup walks the path once
+//and never compiles or runs a regex. Patterns look like /users/{username} or /battles/{id:long}
+public class Router {
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final Node root = new Node();
+
+    public void addRoute(Method method, String pattern, AuthRequirement authRequirement, RouteHandler handler) {
+        addRoute(new Route(method, pattern, authRequirement, handler));
+    }
+
+    public void addAsyncRoute(Method method, String pattern, AuthRequirement authRequirement, AsyncRouteHandler handler) {
+        addRoute(new Route(method, pattern, authRequirement, handler));
+    }
+
+    private void addRoute(Route route) {
+        Method method = route.getMethod();
+        String pattern = route.getPattern();
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("route pattern has to start with /: " + pattern);
+        }
+
+        Node node = root;
+        for (String segment : pattern.substring(1).split("/")) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String parameter = segment.substring(1, segment.length() - 1);
+                boolean numeric = parameter.endsWith(":long");
+                String parameterName = numeric ? parameter.substring(0, parameter.length() - ":long".length()) : parameter;
+
+                if (node.parameterChild == null) {
+                    node.parameterChild = new Node();
+                    node.parameterName = parameterName;
+                    node.numericParameter = numeric;
+                } else if (!node.parameterName.equals(parameterName) || node.numericParameter != numeric) {
+                    throw new IllegalArgumentException("conflicting path parameter " + segment + " in " + pattern);
+                }
+                node = node.parameterChild;
+            } else {
+                node = node.staticChildren.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+
+        if (node.routes.containsKey(method)) {
+            throw new IllegalArgumentException("duplicate route " + method + " " + pattern);
+        }
+        node.routes.put(method, route);
+    }
+
+    //returns null if no route matches method and path
+    public RouteMatch match(Method method, String path) {
+        if (method == null || path == null || !path.startsWith("/")) {
+            return null;
+        }
+
+        Map<String, String> parameters = new HashMap<>();
+        Route route = find(root, method, path, 1, parameters);
+        if (route == null) {
+            return null;
+        }
+        return new RouteMatch(route, parameters);
+    }
+
+    //segment starts at index start, path is fully consumed once start is past its end
+    private Route find(Node node, Method method, String path, int start, Map<String, String> parameters) {
+        if (start > path.length()) {
+            return node.routes.get(method);
+        }
+
+        int end = path.indexOf('/', start);
+        if (end == -1) {
+            end = path.length();
+        }
+        String segment = path.substring(start, end);
+
+        //static segments win over parameters, e.g. /decks/suggest before /decks/{username}
+        Node staticChild = node.staticChildren.get(segment);
+        if (staticChild != null) {
+            Route route = find(staticChild, method, path, end + 1, parameters);
+            if (route != null) {
+                return route;
+            }
+        }
+
+        if (node.parameterChild != null && !segment.isEmpty() && (!node.numericParameter || isNumber(segment))) {
+            Route route = find(node.parameterChild, method, path, end + 1, parameters);
+            if (route != null) {
+                parameters.put(node.parameterName, segment);
+                return route;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isNumber(String segment) {
+        if (segment.length() > MAX_LONG_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (segment.charAt(i) < '0' || segment.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Node {
+        private final Map<String, Node> staticChildren = new HashMap<>();
+        private final Map<Method, Route> routes = new EnumMap<>(Method.class);
+        private Node parameterChild;
+        private String parameterName;
+        private boolean numericParameter;
+    }
+}
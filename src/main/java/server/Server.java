@@ -9,6 +9,8 @@ import lombok.Setter;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.Executor;
 
 @Getter(AccessLevel.PRIVATE)
 @Setter(AccessLevel.PRIVATE)
@@ -21,14 +23,21 @@ public class Server {
     private BufferedReader inputStream;
     private App app;
     private int port;
+    private Executor executor;
 
     public Server(App app, int port) {
+        this(app, port, ExecutionMode.PLATFORM, 0);
+    }
+
+    public Server(App app, int port, ExecutionMode executionMode, int poolSize) {
         setApp(app);
         setPort(port);
+        setExecutor(executionMode.createExecutor(poolSize));
     }
 
     public void start() throws IOException {
-        setServerSocket(new ServerSocket(getPort()));
+        //opened through a channel so accepted sockets support gathering writes
+        setServerSocket(ServerSocketChannel.open().bind(new InetSocketAddress(getPort())).socket());
 
         run();
     }
@@ -37,8 +46,7 @@ public class Server {
         while (true) {
             try {
                 RequestHandler requestHandler = new RequestHandler(getApp(), getServerSocket().accept());
-                Thread thread = new Thread(requestHandler);
-                thread.start();
+                getExecutor().execute(requestHandler);
 
             } catch (IOException e) {
                 throw new RuntimeException(e);
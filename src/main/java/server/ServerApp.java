@@ -1,5 +1,12 @@
 package server;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface ServerApp {
     Response handleRequest(Request request);
+
+    //the event loop server writes the response once the future completes, no thread waits for it
+    default CompletableFuture<Response> handleRequestAsync(Request request) {
+        return CompletableFuture.completedFuture(handleRequest(request));
+    }
 }
@@ -3,6 +3,7 @@ package app.controllers;
 import app.daos.CardDao;
 import app.daos.UserDao;
 import app.models.Card;
+import app.models.PackagePurchase;
 import app.models.User;
 import app.models.UserWithCards;
 import app.repositories.CardRepository;
@@ -232,17 +233,55 @@ class CardControllerTest {
     }
 
     @Test
-    @DisplayName("Test buying/opening existing package with cards")
-    void testOpenPackage() {
+    @DisplayName("Test creating new package with a card name the battle rules cannot classify")
+    void testCreatePackageUnsupportedCardName() {
 
         //arrange
 
-        UserWithCards cadeUser = new UserWithCards();
-        cadeUser.setUsername("cade");
-        cadeUser.setCoins(20);
-        cadeUser.setStack(new ArrayList<>());
-        cadeUser.setDeck(new ArrayList<>());
+        //a goblin and a dragon at the same time
+        String request = """
+                [
+                     {
+                         "Id": "n15f0dc7-37d0-426e-994e-43fc3ac83c1812",
+                         "Name": "GoblinDragon",
+                         "Damage": 10.0
+                     },
+                     {
+                         "Id": "k15f0dc7-37d0-426e-994e-43fc3ac83c1812",
+                         "Name": "Dragon",
+                         "Damage": 50.0
+                     },
+                     {
+                         "Id": "h15e8976-7c86-4d06-9a80-641c2019a70f12",
+                         "Name": "WaterSpell",
+                         "Damage": 20.0
+                     },
+                     {
+                         "Id": "p1b6aj86-bdb2-47e5-b6e4-68c5ab38933942",
+                         "Name": "Ork",
+                         "Damage": 45.0
+                     },
+                     {
+                         "Id": "l1dd758f-649c-40f9-ba3a-8657f4b3430f12",
+                         "Name": "FireSpell",
+                         "Damage": 25.0
+                     }
+                 ]
+                """;
+
+        //act
+        Response response = cardController.createPackage(request);
+
+        //assert
+        assertEquals(response.getStatusCode(), 400); //bad request
+        verify(cardRepositoryMock, never()).createCards(any());
+    }
+
+    @Test
+    @DisplayName("Test buying/opening existing package with cards")
+    void testOpenPackage() {
 
+        //arrange
         //5 cards for pack
         Card card1 = new Card();
         card1.setCardId("1");
@@ -286,22 +325,18 @@ class CardControllerTest {
         cardsFromPack.add(card4);
         cardsFromPack.add(card5);
 
-        when(userWithCardsRepositoryMock.getUser(any())).thenReturn(cadeUser);
-        when(cardRepositoryMock.openPackage()).thenReturn(cardsFromPack);
+        when(cardRepositoryMock.buyPackage("cade")).thenReturn(new PackagePurchase(PackagePurchase.Status.BOUGHT, cardsFromPack));
 
         //act
-        cardController.openPackage("cade");
+        Response response = cardController.openPackage("cade");
 
         //assert
-        ArgumentCaptor<UserWithCards> userCaptor = ArgumentCaptor.forClass(UserWithCards.class);
-        verify(userWithCardsRepositoryMock).updateUser(userCaptor.capture());
-        UserWithCards updatedUser = userCaptor.getValue();
-
-        //verify that user now has the 5 cards
-        assertEquals(updatedUser.getStack().size(), 5);
-
-        //verify that user lost 5 coins
-        assertEquals(updatedUser.getCoins(), 15);
+        assertEquals(response.getStatusCode(), 200);
+        //the repository bought the package in one transaction, coins and cards are not written again
+        verify(cardRepositoryMock).buyPackage("cade");
+        verify(userWithCardsRepositoryMock, never()).updateUser(any());
+        assertTrue(response.getContent().contains("\"Id\":\"1\""));
+        assertTrue(response.getContent().contains("\"Id\":\"5\""));
 
     }
 
@@ -310,13 +345,7 @@ class CardControllerTest {
     void testOpenPackageWithoutEnoughCoins() {
 
         //arrange
-        UserWithCards cadeUser = new UserWithCards();
-        cadeUser.setUsername("cade");
-        cadeUser.setCoins(4);
-        cadeUser.setStack(new ArrayList<>());
-        cadeUser.setDeck(new ArrayList<>());
-
-        when(userWithCardsRepositoryMock.getUser(any())).thenReturn(cadeUser);
+        when(cardRepositoryMock.buyPackage("cade")).thenReturn(new PackagePurchase(PackagePurchase.Status.NOT_ENOUGH_COINS, null));
 
         //act
         Response response = cardController.openPackage("cade");
@@ -331,16 +360,8 @@ class CardControllerTest {
     void testOpenPackageWithoutAvailablePackages() {
 
         //arrange
-        UserWithCards cadeUser = new UserWithCards();
-        cadeUser.setUsername("cade");
-        cadeUser.setCoins(20);
-        cadeUser.setStack(new ArrayList<>());
-        cadeUser.setDeck(new ArrayList<>());
-
-        when(userWithCardsRepositoryMock.getUser(any())).thenReturn(cadeUser);
-
         //no packs left
-        when(cardRepositoryMock.openPackage()).thenReturn(null);
+        when(cardRepositoryMock.buyPackage("cade")).thenReturn(new PackagePurchase(PackagePurchase.Status.NO_PACKAGE, null));
 
         //act
         Response response = cardController.openPackage("cade");
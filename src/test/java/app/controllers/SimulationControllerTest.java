@@ -0,0 +1,89 @@
+package app.controllers;
+
+import app.daos.CardDao;
+import app.models.SimulationResult;
+import app.repositories.UserWithCardsRepository;
+import app.services.BattleSimulator;
+import app.services.DeckSuggester;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.Response;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SimulationControllerTest {
+
+    private BattleSimulator battleSimulatorMock;
+    private SimulationController simulationController;
+
+    @BeforeEach
+    void beforeEach() {
+        battleSimulatorMock = mock(BattleSimulator.class);
+        simulationController = new SimulationController(mock(UserWithCardsRepository.class), mock(CardDao.class),
+                battleSimulatorMock, mock(DeckSuggester.class), 1000);
+    }
+
+    @Test
+    @DisplayName("Test that a simulation with a card name the battle rules cannot classify is refused")
+    void testSimulateUnsupportedCardName() {
+        //arrange
+        String request = """
+                {
+                    "Deck": [
+                        {"Id": "1", "Name": "GoblinDragon", "Damage": 10.0},
+                        {"Id": "2", "Name": "Dragon", "Damage": 50.0},
+                        {"Id": "3", "Name": "WaterSpell", "Damage": 20.0},
+                        {"Id": "4", "Name": "Ork", "Damage": 45.0}
+                    ],
+                    "OpponentDeck": [
+                        {"Id": "5", "Name": "WaterFireSpell", "Damage": 10.0},
+                        {"Id": "6", "Name": "Knight", "Damage": 50.0},
+                        {"Id": "7", "Name": "FireElf", "Damage": 20.0},
+                        {"Id": "8", "Name": "Kraken", "Damage": 45.0}
+                    ]
+                }
+                """;
+
+        //act
+        Response response = simulationController.simulate("cade", request);
+
+        //assert
+        assertEquals(400, response.getStatusCode()); //bad request
+        verify(battleSimulatorMock, never()).simulate(any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test that a simulation with decks from the request body is run")
+    void testSimulateDecksFromBody() {
+        //arrange
+        String request = """
+                {
+                    "Deck": [
+                        {"Id": "1", "Name": "WaterGoblin", "Damage": 10.0},
+                        {"Id": "2", "Name": "Dragon", "Damage": 50.0},
+                        {"Id": "3", "Name": "WaterSpell", "Damage": 20.0},
+                        {"Id": "4", "Name": "Ork", "Damage": 45.0}
+                    ],
+                    "OpponentDeck": [
+                        {"Id": "5", "Name": "RegularSpell", "Damage": 10.0},
+                        {"Id": "6", "Name": "Knight", "Damage": 50.0},
+                        {"Id": "7", "Name": "FireElf", "Damage": 20.0},
+                        {"Id": "8", "Name": "Kraken", "Damage": 45.0}
+                    ],
+                    "Battles": 10,
+                    "Seed": 7
+                }
+                """;
+        when(battleSimulatorMock.simulate(any(), any(), eq(10), eq(7L))).thenReturn(new SimulationResult());
+
+        //act
+        Response response = simulationController.simulate("cade", request);
+
+        //assert
+        assertEquals(200, response.getStatusCode());
+        verify(battleSimulatorMock).simulate(any(), any(), eq(10), eq(7L));
+    }
+}
@@ -6,6 +6,7 @@ import app.models.User;
 import app.models.UserScoreboard;
 import app.models.UserWithCards;
 import app.repositories.UserWithCardsRepository;
+import app.services.TokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,13 +29,15 @@ class UserControllerTest {
     private CardDao cardDaoMock;
     private UserController userController;
     private UserWithCardsRepository userWithCardsRepositoryMock;
+    private TokenService tokenService;
 
     @BeforeEach
     void beforeEach(){
         userDaoMock = mock(UserDao.class);
         cardDaoMock = mock(CardDao.class);
         userWithCardsRepositoryMock = mock(UserWithCardsRepository.class);
-        userController = new UserController(userWithCardsRepositoryMock, cardDaoMock, userDaoMock);
+        tokenService = new TokenService(Map.of("key1", "test-secret".getBytes()), "key1", 60000, false);
+        userController = new UserController(userWithCardsRepositoryMock, cardDaoMock, userDaoMock, tokenService);
     }
 
     @Test
@@ -106,6 +110,27 @@ class UserControllerTest {
         assertEquals(response.getStatusCode(), 409); //HTTP STATUS: CONFLICT
     }
 
+    @Test
+    @DisplayName("Test for error response when the user could not be saved")
+    void testUserCreateResponseDatabaseError() throws IllegalAccessException {
+
+        //arrange
+        doThrow(new IllegalStateException("user could not be created")).when(userWithCardsRepositoryMock).createUser(any(User.class));
+
+        String request = """
+                {
+                    "Username": "admin",
+                    "Password": "pw123"
+                }
+                """;
+
+        //act
+        Response response = userController.createUser(request);
+
+        //assert
+        assertEquals(response.getStatusCode(), 500); //HTTP STATUS: INTERNAL SERVER ERROR
+    }
+
     @Test
     @DisplayName("Test for error on invalid JSON request")
     void testUserCreateResponseBadRequest() throws IllegalAccessException {
@@ -151,8 +176,8 @@ class UserControllerTest {
 
         //assert
         assertEquals(response.getStatusCode(), 200); //HTTP STATUS: OK
-        assertEquals(response.getContent(), """
-                { "data": "testUser-mtcgToken", "error": null }""");
+        String token = response.getContent().replace("{ \"data\": \"", "").replace("\", \"error\": null }", "");
+        assertEquals("testUser", tokenService.verify(token)); //signed token for the user from the database
 
     }
 
@@ -346,4 +371,34 @@ class UserControllerTest {
                 { "data": [{"Name":"Cade","Elo":180,"Wins":5,"Losses":1},{"Name":"Bob","Elo":170,"Wins":10,"Losses":2},{"Name":"Admin","Elo":80,"Wins":2,"Losses":5}], "error": null }""");
     }
 
+    @Test
+    @DisplayName("Test that the scoreboard is only rendered again after the leaderboard changed and unchanged boards return 304")
+    void testCachedScoreboards() {
+        //arrange
+        UserScoreboard cadeUserScoreboard = new UserScoreboard();
+        cadeUserScoreboard.setDisplayName("Cade");
+        cadeUserScoreboard.setElo(100);
+        ArrayList<UserScoreboard> userScoreboardArrayList = new ArrayList<>();
+        userScoreboardArrayList.add(cadeUserScoreboard);
+
+        when(userWithCardsRepositoryMock.getLeaderboardVersion()).thenReturn(1L);
+        when(userWithCardsRepositoryMock.getAllScoreboards()).thenReturn(userScoreboardArrayList);
+
+        //act
+        Response first = userController.getAllScoreboards();
+        Response second = userController.getAllScoreboards();
+        Response notModified = userController.getAllScoreboards(first.getEtag());
+
+        when(userWithCardsRepositoryMock.getLeaderboardVersion()).thenReturn(2L);
+        Response changed = userController.getAllScoreboards(first.getEtag());
+
+        //assert
+        verify(userWithCardsRepositoryMock, times(2)).getAllScoreboards();
+        assertSame(first.getContentBytes(), second.getContentBytes());
+        assertEquals(304, notModified.getStatusCode());
+        assertEquals(0, notModified.getContentBytes().length);
+        assertEquals(200, changed.getStatusCode());
+        assertNotEquals(first.getEtag(), changed.getEtag());
+    }
+
 }
\ No newline at end of file
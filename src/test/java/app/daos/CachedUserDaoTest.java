@@ -0,0 +1,84 @@
+package app.daos;
+
+import app.models.User;
+import app.services.ConnectionPool;
+import app.services.TinyLfuCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CachedUserDaoTest {
+
+    //coins of cade in the fake database, every query returns the current row
+    private final AtomicInteger coins = new AtomicInteger(20);
+    private Connection connectionMock;
+    private TinyLfuCache<String, User> cache;
+    private CachedUserDao userDao;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        ConnectionPool connectionPoolMock = mock(ConnectionPool.class);
+        connectionMock = mock(Connection.class);
+        PreparedStatement statementMock = mock(PreparedStatement.class);
+        ResultSet resultMock = mock(ResultSet.class);
+        when(connectionPoolMock.getConnection()).thenReturn(connectionMock);
+        when(connectionMock.prepareStatement(anyString())).thenReturn(statementMock);
+        when(statementMock.executeQuery()).thenReturn(resultMock);
+        when(resultMock.next()).thenReturn(true);
+        when(resultMock.getString("username")).thenReturn("cade");
+        when(resultMock.getInt(anyString())).thenAnswer(invocation -> "coins".equals(invocation.getArgument(0)) ? coins.get() : 0);
+        cache = new TinyLfuCache<>(100, 60000);
+        userDao = new CachedUserDao(connectionPoolMock, cache);
+    }
+
+    @Test
+    @DisplayName("Test that two commits reported in the other order never leave the older row in the cache")
+    void testCommittedOutOfOrder() throws SQLException {
+        //arrange
+        assertEquals(20, userDao.read("cade").getCoins());
+        //transaction A commits first, then transaction B
+        coins.set(15);
+        User rowA = userDao.spendCoins(connectionMock, "cade", 5);
+        coins.set(10);
+        User rowB = userDao.spendCoins(connectionMock, "cade", 5);
+
+        //act
+        //B reports its commit first and a read caches the current row before A reports
+        userDao.committed(rowB);
+        int readBetween = userDao.read("cade").getCoins();
+        userDao.committed(rowA);
+
+        //assert
+        assertEquals(15, rowA.getCoins());
+        assertEquals(10, readBetween);
+        assertNull(cache.get("cade"));
+        assertEquals(10, userDao.read("cade").getCoins());
+    }
+
+    @Test
+    @DisplayName("Test that a row read while a transaction is running is dropped once it commits")
+    void testReadDuringTransaction() throws SQLException {
+        //arrange
+        User spent = userDao.spendCoins(connectionMock, "cade", 5);
+
+        //act
+        //the transaction is not committed yet, the read still sees the old row
+        int readBeforeCommit = userDao.read("cade").getCoins();
+        coins.set(15);
+        userDao.committed(spent);
+
+        //assert
+        assertEquals(20, readBeforeCommit);
+        assertEquals(15, userDao.read("cade").getCoins());
+    }
+}
@@ -0,0 +1,127 @@
+package app.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//compares the BattleRules lookup tables with the original string based rules (LegacyBattle),
+//for single matchups and for a whole battle that runs all 100 rounds.
+//run with: mvn test-compile exec:java -Dexec.mainClass=app.models.BattleBenchmark -Dexec.classpathScope=test
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BattleBenchmark {
+    private static final String[] NAMES = {
+            "WaterGoblin", "FireGoblin", "RegularGoblin", "Dragon", "FireElf", "Wizzard", "Ork", "Knight", "Kraken",
+            "WaterSpell", "FireSpell", "RegularSpell"
+    };
+    private static final int PAIRS = 1024;
+
+    private final Card[] cards1 = new Card[PAIRS];
+    private final Card[] cards2 = new Card[PAIRS];
+    private int next = 0;
+
+    private Battle battle;
+    private LegacyBattle legacyBattle;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(19);
+        for (int i = 0; i < PAIRS; i++) {
+            cards1[i] = new Card("a" + i, NAMES[random.nextInt(NAMES.length)], 5 + random.nextInt(60), null, true);
+            cards2[i] = new Card("b" + i, NAMES[random.nextInt(NAMES.length)], 5 + random.nextInt(60), null, true);
+        }
+        battle = new Battle();
+        legacyBattle = new LegacyBattle();
+    }
+
+    @Benchmark
+    public Card determineWinningCard() {
+        int i = next++ & (PAIRS - 1);
+        return battle.determineWinningCard(cards1[i], cards2[i]);
+    }
+
+    @Benchmark
+    public Card legacyDetermineWinningCard() {
+        int i = next++ & (PAIRS - 1);
+        //the log of a single matchup, otherwise it would grow for the whole run
+        legacyBattle.setBattleLog("");
+        return legacyBattle.determineWinningCard(cards1[i], cards2[i]);
+    }
+
+    @Benchmark
+    public BattleLog fullBattle(Battles battles) {
+        battles.battle.startBattle();
+        return battles.battle.getBattleLog();
+    }
+
+    //what /battles?log=full costs
+    @Benchmark
+    public String fullBattleWithText(Battles battles) {
+        battles.battle.startBattle();
+        return battles.battle.getBattleLog().renderText();
+    }
+
+    @Benchmark
+    public String legacyFullBattle(Battles battles) {
+        battles.legacyBattle.startBattle();
+        return battles.legacyBattle.getBattleLog();
+    }
+
+    //fresh battles for every invocation, only used by the full battle benchmarks
+    @State(Scope.Thread)
+    public static class Battles {
+        private Battle battle;
+        private LegacyBattle legacyBattle;
+
+        //every pairing of these decks is a draw, so both battles always run all 100 rounds
+        @Setup(Level.Invocation)
+        public void setup() {
+            battle = new Battle();
+            battle.setUser1(user("user1"));
+            battle.setUser2(user("user2"));
+            legacyBattle = new LegacyBattle();
+            legacyBattle.setUser1(user("user1"));
+            legacyBattle.setUser2(user("user2"));
+        }
+    }
+
+    private static UserWithCards user(String username) {
+        ArrayList<Card> deck = new ArrayList<>();
+        deck.add(new Card(username + "1", "WaterSpell", 20, username, true));
+        deck.add(new Card(username + "2", "WaterSpell", 20, username, true));
+        deck.add(new Card(username + "3", "WaterGoblin", 20, username, true));
+        deck.add(new Card(username + "4", "WaterGoblin", 20, username, true));
+
+        UserWithCards user = new UserWithCards();
+        user.setUsername(username);
+        user.setElo(100);
+        user.setDeck(deck);
+        user.setStack(new ArrayList<>());
+        return user;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BattleBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,144 @@
+package app.models;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BattleRulesTest {
+
+    private static final String[] ELEMENTS = {"", "Fire", "Water", "Regular"};
+    private static final String[] SPECIES = {"Goblin", "Dragon", "Wizard", "Wizzard", "Ork", "Knight", "Kraken", "FireElf", "Elf", "Troll", "Spell", ""};
+    private static final float[] DAMAGES = {0, 5, 10, 10.5f, 20, 40, 100, -10, Float.MIN_VALUE, Float.MAX_VALUE, Float.POSITIVE_INFINITY};
+
+    @Test
+    @DisplayName("Test that cards are classified once from their name")
+    void testClassification() {
+        //act
+        Card waterSpell = new Card("1", "WaterSpell", 20, null, false);
+        Card fireElf = new Card("2", "FireElf", 20, null, false);
+        Card troll = new Card();
+        troll.setName("Troll");
+
+        //assert
+        assertTrue(waterSpell.isSpell());
+        assertEquals(Card.Element.WATER, waterSpell.getElement());
+        assertEquals(Card.Species.OTHER, waterSpell.getSpecies());
+        assertFalse(fireElf.isSpell());
+        assertEquals(Card.Element.FIRE, fireElf.getElement());
+        assertEquals(Card.Species.FIRE_ELF, fireElf.getSpecies());
+        assertEquals(Card.Element.NORMAL, troll.getElement());
+        assertEquals(Card.Species.OTHER, troll.getSpecies());
+    }
+
+    @Test
+    @DisplayName("Test that the lookup tables pick the same winner and render the same log as the string based rules for every matchup")
+    void testSameResultsAsStringRules() {
+        //arrange
+        List<String> names = cardNames();
+        Random random = new Random(19);
+        int matchups = 0;
+
+        for (String name1 : names) {
+            for (String name2 : names) {
+                matchups += assertSameResults(name1, name2, random);
+            }
+        }
+        assertTrue(matchups > 10000);
+    }
+
+    @Test
+    @DisplayName("Test that generated names with several keywords are refused or give the same results as the string based rules")
+    void testGeneratedNames() {
+        //arrange
+        String[] fragments = {"Fire", "Water", "Regular", "Goblin", "Dragon", "Wizard", "Ork", "Knight", "Kraken", "FireElf", "Elf", "Spell", "Troll"};
+        List<String> names = cardNames();
+        Random random = new Random(24);
+        int supported = 0;
+        int refused = 0;
+
+        for (int n = 0; n < 300; n++) {
+            StringBuilder name = new StringBuilder();
+            int parts = 2 + random.nextInt(3);
+            for (int i = 0; i < parts; i++) {
+                name.append(fragments[random.nextInt(fragments.length)]);
+            }
+
+            //act
+            boolean isSupported = Card.isSupportedName(name.toString());
+
+            //assert
+            if (!isSupported) {
+                refused++;
+                continue;
+            }
+            supported++;
+            for (int i = 0; i < 10; i++) {
+                String other = names.get(random.nextInt(names.size()));
+                assertSameResults(name.toString(), other, random);
+                assertSameResults(other, name.toString(), random);
+            }
+        }
+        assertTrue(supported > 50);
+        assertTrue(refused > 50);
+        //these gave other results than the string based rules
+        assertFalse(Card.isSupportedName("GoblinDragon"));
+        assertFalse(Card.isSupportedName("WaterFireSpell"));
+        assertFalse(Card.isSupportedName("FireElfKnight"));
+        assertFalse(Card.isSupportedName("WaterFireElf"));
+        assertTrue(Card.isSupportedName("FireElf"));
+        assertTrue(Card.isSupportedName("RegularKnightSpell"));
+    }
+
+    //plays name1 against name2 with a few damages, returns the number of matchups played
+    private static int assertSameResults(String name1, String name2, Random random) {
+        int matchups = 0;
+        for (int i = 0; i < 20; i++) {
+            float damage1 = i < DAMAGES.length ? DAMAGES[i] : random.nextInt(200) / 2f;
+            float damage2 = DAMAGES[random.nextInt(DAMAGES.length)];
+            if (random.nextBoolean()) {
+                damage2 = random.nextFloat() * 100;
+            }
+
+            Card card1 = new Card("1", name1, damage1, null, false);
+            Card card2 = new Card("2", name2, damage2, null, false);
+            Battle battle = new Battle();
+            LegacyBattle legacy = new LegacyBattle();
+
+            //act
+            Card winner = battle.determineWinningCard(card1, card2);
+            Card legacyWinner = legacy.determineWinningCard(card1, card2);
+            BattleLog log = new BattleLog("user1", "user2");
+            log.addRound(card1, card2, BattleRules.damage(card1, card2), BattleRules.damage(card2, card1),
+                    winner == card1 ? BattleLog.USER1 : winner == card2 ? BattleLog.USER2 : BattleLog.DRAW);
+            StringBuilder text = new StringBuilder();
+            log.renderRound(0, text);
+
+            //assert
+            assertSame(legacyWinner, winner, name1 + " " + damage1 + " vs " + name2 + " " + damage2);
+            //the legacy battle wrote the card line in startBattle and the rest in determineWinningCard
+            assertEquals("\n\nuser1: " + name1 + "(" + damage1 + " Damage) vs user2: " + name2 + "(" + damage2 + " Damage)"
+                    + legacy.getBattleLog(), text.toString());
+            matchups++;
+        }
+        return matchups;
+    }
+
+    //every element prefix with every species, names with two elements (e.g. WaterFireElf) are refused by Card.isSupportedName
+    private static List<String> cardNames() {
+        List<String> names = new ArrayList<>();
+        for (String element : ELEMENTS) {
+            for (String species : SPECIES) {
+                String name = element + species;
+                if (!name.isEmpty() && !(name.contains("Fire") && name.contains("Water"))) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+}
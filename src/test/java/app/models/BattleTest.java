@@ -6,6 +6,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -118,7 +120,7 @@ class BattleTest {
         //start battle
         battle.startBattle();
 
-        System.out.println(battle.getBattleLog());
+        System.out.println(battle.getBattleLog().renderText());
 
         //assert
 
@@ -288,4 +290,71 @@ class BattleTest {
         //assert
         assertNull(winningCard);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test that the battle log records the rounds and renders text and summary on request")
+    void testBattleLog() {
+
+        //arrange
+        user1.getDeck().add(new Card("1", "WaterSpell", 20.0f, null, true));
+        user2.getDeck().add(new Card("2", "FireGoblin", 20.0f, null, true));
+
+        //act
+        battle.startBattle();
+        BattleLog log = battle.getBattleLog();
+
+        //assert
+        assertEquals(1, log.getRounds());
+        assertEquals("user1", log.getWinnerUsername());
+        assertEquals("\"Battle started between user1 and user2!\n"
+                + "\n\nuser1: WaterSpell(20.0 Damage) vs user2: FireGoblin(20.0 Damage) => 20.0 VS 20.0 -> 40.0 VS 10.0 => WaterSpell wins"
+                + "\n\nuser1 won the battle!", log.renderText());
+        assertEquals(Map.of("Winner", "user1", "Rounds", 1), log.summarize(false));
+        assertEquals(List.of(
+                Map.of("Username", "user1", "RoundsWon", 1, "EloChange", 3),
+                Map.of("Username", "user2", "RoundsWon", 0, "EloChange", -5)
+        ), log.summarize(true).get("Players"));
+    }
+
+    @Test
+    @DisplayName("Test that a battle with the same seed and starting decks is played exactly the same again")
+    void testSeededBattleIsReproducible() {
+
+        //arrange
+        battle.setSeed(42);
+        addMixedDeck(user1, "a");
+        addMixedDeck(user2, "b");
+
+        Battle replay = new Battle();
+        replay.setSeed(42);
+        UserWithCards replayUser1 = new UserWithCards();
+        replayUser1.setUsername("user1");
+        replayUser1.setDeck(new ArrayList<>(user1.getDeck()));
+        UserWithCards replayUser2 = new UserWithCards();
+        replayUser2.setUsername("user2");
+        replayUser2.setDeck(new ArrayList<>(user2.getDeck()));
+        replay.setUser1(replayUser1);
+        replay.setUser2(replayUser2);
+
+        //act
+        battle.startBattle();
+        replay.startBattle();
+
+        //assert
+        BattleLog log = battle.getBattleLog();
+        assertEquals(42, log.getSeed());
+        assertArrayEquals(new String[]{"a1", "a2", "a3", "a4"}, log.getDeck1());
+        assertArrayEquals(new String[]{"b1", "b2", "b3", "b4"}, log.getDeck2());
+        assertTrue(log.getRounds() > 1);
+        assertEquals(log.renderText(), replay.getBattleLog().renderText());
+        assertEquals(log.getWinner(), replay.getBattleLog().getWinner());
+    }
+
+    //cards that win, lose and draw against each other, so the battle depends on the order of the picks
+    private static void addMixedDeck(UserWithCards user, String prefix) {
+        user.getDeck().add(new Card(prefix + "1", "WaterSpell", 20.0f, null, true));
+        user.getDeck().add(new Card(prefix + "2", "FireGoblin", 25.0f, null, true));
+        user.getDeck().add(new Card(prefix + "3", "Knight", 30.0f, null, true));
+        user.getDeck().add(new Card(prefix + "4", "Kraken", 15.0f, null, true));
+    }
+}
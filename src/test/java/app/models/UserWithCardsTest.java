@@ -0,0 +1,76 @@
+package app.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserWithCardsTest {
+
+    UserWithCards user;
+
+    @BeforeEach
+    void beforeEach() {
+        user = new UserWithCards();
+        user.setUsername("user1");
+        user.setCoins(20);
+        user.setElo(100);
+        user.setDeck(new ArrayList<>());
+        user.setStack(new ArrayList<>());
+        user.getDeck().add(new Card("1", "Dragon", 50.0f, "user1", true));
+        user.getStack().add(new Card("2", "WaterGoblin", 10.0f, "user1", false));
+    }
+
+    @Test
+    @DisplayName("Test that a user without snapshot counts as completely changed")
+    void testWithoutSnapshot() {
+        //act
+        ArrayList<Card> changedDeck = user.changedCards(user.getDeck(), true);
+        ArrayList<Card> changedStack = user.changedCards(user.getStack(), false);
+
+        //assert
+        assertTrue(user.userChanged());
+        assertEquals(1, changedDeck.size());
+        assertEquals(1, changedStack.size());
+    }
+
+    @Test
+    @DisplayName("Test that nothing is changed right after the snapshot")
+    void testUnchangedAfterSnapshot() {
+        //arrange
+        user.markLoaded();
+
+        //act
+        ArrayList<Card> changedDeck = user.changedCards(user.getDeck(), true);
+        ArrayList<Card> changedStack = user.changedCards(user.getStack(), false);
+
+        //assert
+        assertFalse(user.userChanged());
+        assertTrue(changedDeck.isEmpty());
+        assertTrue(changedStack.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test that only added and moved cards and changed coins are detected")
+    void testChangedCardsAndCoins() {
+        //arrange
+        user.markLoaded();
+
+        //act
+        user.setCoins(15);
+        user.getStack().add(new Card("3", "FireElf", 20.0f, null, false)); //bought
+        user.getDeck().add(user.getStack().remove(0)); //moved from stack to deck
+        ArrayList<Card> changedDeck = user.changedCards(user.getDeck(), true);
+        ArrayList<Card> changedStack = user.changedCards(user.getStack(), false);
+
+        //assert
+        assertTrue(user.userChanged());
+        assertEquals(1, changedDeck.size());
+        assertEquals("2", changedDeck.get(0).getCardId());
+        assertEquals(1, changedStack.size());
+        assertEquals("3", changedStack.get(0).getCardId());
+    }
+}
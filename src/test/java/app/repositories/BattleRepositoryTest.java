@@ -0,0 +1,185 @@
+package app.repositories;
+
+import app.daos.BattleDao;
+import app.daos.CardDao;
+import app.daos.UserDao;
+import app.models.Battle;
+import app.models.BattleLog;
+import app.models.Card;
+import app.models.User;
+import app.models.UserWithCards;
+import app.services.ConnectionPool;
+import app.services.Leaderboard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BattleRepositoryTest {
+
+    private Connection connectionMock;
+    private UserDao userDaoMock;
+    private CardDao cardDaoMock;
+    private BattleDao battleDaoMock;
+    private Leaderboard leaderboardMock;
+    private BattleRepository battleRepository;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        ConnectionPool connectionPoolMock = mock(ConnectionPool.class);
+        connectionMock = mock(Connection.class);
+        when(connectionPoolMock.getConnection()).thenReturn(connectionMock);
+        userDaoMock = mock(UserDao.class);
+        cardDaoMock = mock(CardDao.class);
+        battleDaoMock = mock(BattleDao.class);
+        leaderboardMock = mock(Leaderboard.class);
+        battleRepository = new BattleRepository(connectionPoolMock, userDaoMock, cardDaoMock, battleDaoMock, leaderboardMock);
+    }
+
+    @Test
+    @DisplayName("Test that a battle is settled for both players in one transaction and only won cards change owner")
+    void testSettleInOneTransaction() throws SQLException {
+        //arrange
+        Battle battle = battle(
+                deck("a1", "WaterSpell", 50, "a2", "Dragon", 60),
+                deck("b1", "FireGoblin", 10, "b2", "WaterGoblin", 5)
+        );
+        battle.startBattle();
+        User user1 = new User("user1", null, null, null, null, 20, 103, 1, 0);
+        User user2 = new User("user2", null, null, null, null, 20, 95, 0, 1);
+        when(userDaoMock.addBattleResults(eq(connectionMock), any(), any(), any(), any())).thenReturn(new ArrayList<>(List.of(user1, user2)));
+        when(battleDaoMock.create(connectionMock, battle.getBattleLog())).thenReturn(7L);
+
+        //act
+        long battleId = battleRepository.settle(battle);
+
+        //assert
+        assertEquals(7, battleId);
+        InOrder inOrder = inOrder(connectionMock, userDaoMock, cardDaoMock, battleDaoMock, leaderboardMock);
+        inOrder.verify(connectionMock).setAutoCommit(false);
+        inOrder.verify(userDaoMock).addBattleResults(connectionMock, new String[]{"user1", "user2"}, new int[]{3, -5}, new int[]{1, 0}, new int[]{0, 1});
+        ArgumentCaptor<String[]> cardIdsCaptor = ArgumentCaptor.forClass(String[].class);
+        inOrder.verify(cardDaoMock).transferToDecks(eq(connectionMock), cardIdsCaptor.capture(), eq(new String[]{"user2", "user2"}), eq(new String[]{"user1", "user1"}));
+        inOrder.verify(battleDaoMock).create(connectionMock, battle.getBattleLog());
+        inOrder.verify(connectionMock).commit();
+        inOrder.verify(userDaoMock).committed(user1);
+        inOrder.verify(leaderboardMock).update(user1);
+        String[] cardIds = cardIdsCaptor.getValue();
+        Arrays.sort(cardIds);
+        //user1 won both goblins, its own cards are not written
+        assertArrayEquals(new String[]{"b1", "b2"}, cardIds);
+        verify(userDaoMock, never()).update(any(), any());
+        verify(cardDaoMock, never()).updateOwner(any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    @DisplayName("Test that nothing of the battle is saved if a statement fails")
+    void testRollbackOnFailure() throws SQLException {
+        //arrange
+        Battle battle = battle(
+                deck("a1", "WaterSpell", 50, "a2", "Dragon", 60),
+                deck("b1", "FireGoblin", 10, "b2", "WaterGoblin", 5)
+        );
+        battle.startBattle();
+        when(userDaoMock.addBattleResults(eq(connectionMock), any(), any(), any(), any())).thenReturn(new ArrayList<>());
+        when(battleDaoMock.create(any(), any())).thenThrow(new SQLException("insert failed"));
+
+        //act & assert
+        assertThrows(IllegalStateException.class, () -> battleRepository.settle(battle));
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(userDaoMock, never()).committed(any());
+        verify(leaderboardMock, never()).update(any());
+    }
+
+    @Test
+    @DisplayName("Test that the battle is rolled back if a won card no longer belongs to the loser")
+    void testRollbackWhenCardChangedOwner() throws SQLException {
+        //arrange
+        Battle battle = battle(
+                deck("a1", "WaterSpell", 50, "a2", "Dragon", 60),
+                deck("b1", "FireGoblin", 10, "b2", "WaterGoblin", 5)
+        );
+        battle.startBattle();
+        when(userDaoMock.addBattleResults(eq(connectionMock), any(), any(), any(), any())).thenReturn(new ArrayList<>());
+        //user2 traded a card away while the battle was fought
+        doThrow(new SQLException("1 of 2 cards still belonged to their previous owner"))
+                .when(cardDaoMock).transferToDecks(eq(connectionMock), any(), any(), any());
+
+        //act & assert
+        assertThrows(IllegalStateException.class, () -> battleRepository.settle(battle));
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(battleDaoMock, never()).create(any(), any());
+        verify(userDaoMock, never()).committed(any());
+    }
+
+    @Test
+    @DisplayName("Test that a tournament round is saved with one statement for all players and one batch of battles")
+    void testSettleRound() throws SQLException {
+        //arrange
+        Battle battle1 = battle("user1", deck("a1", "WaterSpell", 50, "a2", "Dragon", 60), "user2", deck("b1", "FireGoblin", 10, "b2", "WaterGoblin", 5));
+        Battle battle2 = battle("user3", deck("c1", "FireGoblin", 10, "c2", "WaterGoblin", 5), "user4", deck("d1", "WaterSpell", 50, "d2", "Dragon", 60));
+        battle1.startBattle();
+        battle2.startBattle();
+        List<BattleLog> round = List.of(battle1.getBattleLog(), battle2.getBattleLog());
+        User user1 = new User("user1", null, null, null, null, 20, 103, 1, 0);
+        when(userDaoMock.addBattleResults(eq(connectionMock), any(), any(), any(), any())).thenReturn(new ArrayList<>(List.of(user1)));
+        when(battleDaoMock.createAll(connectionMock, round)).thenReturn(new long[]{7, 8});
+
+        //act
+        long[] battleIds = battleRepository.settleRound(round);
+
+        //assert
+        assertArrayEquals(new long[]{7, 8}, battleIds);
+        InOrder inOrder = inOrder(connectionMock, userDaoMock, battleDaoMock, leaderboardMock);
+        inOrder.verify(connectionMock).setAutoCommit(false);
+        inOrder.verify(userDaoMock).addBattleResults(connectionMock, new String[]{"user1", "user2", "user3", "user4"},
+                new int[]{3, -5, -5, 3}, new int[]{1, 0, 0, 1}, new int[]{0, 1, 1, 0});
+        inOrder.verify(battleDaoMock).createAll(connectionMock, round);
+        inOrder.verify(connectionMock).commit();
+        inOrder.verify(userDaoMock).committed(user1);
+        inOrder.verify(leaderboardMock).update(user1);
+        verifyNoInteractions(cardDaoMock);
+    }
+
+    private static Battle battle(ArrayList<Card> deck1, ArrayList<Card> deck2) {
+        return battle("user1", deck1, "user2", deck2);
+    }
+
+    private static Battle battle(String username1, ArrayList<Card> deck1, String username2, ArrayList<Card> deck2) {
+        Battle battle = new Battle();
+        battle.setSeed(1);
+        battle.setUser1(user(username1, deck1));
+        battle.setUser2(user(username2, deck2));
+        return battle;
+    }
+
+    private static UserWithCards user(String username, ArrayList<Card> deck) {
+        UserWithCards user = new UserWithCards();
+        user.setUsername(username);
+        user.setElo(100);
+        user.setDeck(deck);
+        user.setStack(new ArrayList<>());
+        return user;
+    }
+
+    private static ArrayList<Card> deck(String id1, String name1, float damage1, String id2, String name2, float damage2) {
+        ArrayList<Card> deck = new ArrayList<>();
+        deck.add(new Card(id1, name1, damage1, null, true));
+        deck.add(new Card(id2, name2, damage2, null, true));
+        return deck;
+    }
+}
@@ -0,0 +1,129 @@
+package app.repositories;
+
+import app.daos.CardDao;
+import app.daos.PackageDao;
+import app.daos.UserDao;
+import app.models.Card;
+import app.models.PackagePurchase;
+import app.models.User;
+import app.services.ConnectionPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class CardRepositoryTest {
+
+    private Connection connectionMock;
+    private UserDao userDaoMock;
+    private CardDao cardDaoMock;
+    private PackageDao packageDaoMock;
+    private CardRepository cardRepository;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        ConnectionPool connectionPoolMock = mock(ConnectionPool.class);
+        connectionMock = mock(Connection.class);
+        when(connectionPoolMock.getConnection()).thenReturn(connectionMock);
+        userDaoMock = mock(UserDao.class);
+        cardDaoMock = mock(CardDao.class);
+        packageDaoMock = mock(PackageDao.class);
+        cardRepository = new CardRepository(connectionPoolMock, userDaoMock, cardDaoMock, packageDaoMock);
+    }
+
+    @Test
+    @DisplayName("Test that package, coins and cards are written in one transaction")
+    void testBuyPackageInOneTransaction() throws SQLException {
+        //arrange
+        User user = new User("cade", null, null, null, null, 15, 100, 0, 0);
+        when(packageDaoMock.claimNext(connectionMock)).thenReturn(cards());
+        when(userDaoMock.spendCoins(connectionMock, "cade", 5)).thenReturn(user);
+
+        //act
+        PackagePurchase purchase = cardRepository.buyPackage("cade");
+
+        //assert
+        assertEquals(PackagePurchase.Status.BOUGHT, purchase.getStatus());
+        assertEquals("cade", purchase.getCards().get(0).getCardOwnerUsername());
+        InOrder inOrder = inOrder(connectionMock, packageDaoMock, userDaoMock, cardDaoMock);
+        inOrder.verify(connectionMock).setAutoCommit(false);
+        inOrder.verify(userDaoMock).spendCoins(connectionMock, "cade", 5);
+        inOrder.verify(packageDaoMock).claimNext(connectionMock);
+        inOrder.verify(cardDaoMock).updateOwner(connectionMock, "cade", false, new String[]{"1", "2"});
+        inOrder.verify(connectionMock).commit();
+        inOrder.verify(userDaoMock).committed(user);
+    }
+
+    @Test
+    @DisplayName("Test that a user without enough coins never claims a package")
+    void testNotEnoughCoinsRollsBack() throws SQLException {
+        //arrange
+        when(packageDaoMock.claimNext(connectionMock)).thenReturn(cards());
+        when(userDaoMock.spendCoins(connectionMock, "cade", 5)).thenReturn(null);
+
+        //act
+        PackagePurchase purchase = cardRepository.buyPackage("cade");
+
+        //assert
+        assertEquals(PackagePurchase.Status.NOT_ENOUGH_COINS, purchase.getStatus());
+        verify(packageDaoMock, never()).claimNext(any());
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(cardDaoMock, never()).updateOwner(any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    @DisplayName("Test that the coins are given back if no package is left")
+    void testNoPackageRollsBack() throws SQLException {
+        //arrange
+        when(userDaoMock.spendCoins(connectionMock, "cade", 5)).thenReturn(new User("cade", null, null, null, null, 15, 100, 0, 0));
+        when(packageDaoMock.claimNext(connectionMock)).thenReturn(null);
+
+        //act
+        PackagePurchase purchase = cardRepository.buyPackage("cade");
+
+        //assert
+        assertEquals(PackagePurchase.Status.NO_PACKAGE, purchase.getStatus());
+        InOrder inOrder = inOrder(connectionMock, packageDaoMock, userDaoMock);
+        inOrder.verify(userDaoMock).spendCoins(connectionMock, "cade", 5);
+        inOrder.verify(packageDaoMock).claimNext(connectionMock);
+        inOrder.verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(userDaoMock, never()).committed(any());
+    }
+
+    @Test
+    @DisplayName("Test that nothing is bought if a statement fails")
+    void testFailureRollsBack() throws SQLException {
+        //arrange
+        when(packageDaoMock.claimNext(connectionMock)).thenReturn(cards());
+        when(userDaoMock.spendCoins(connectionMock, "cade", 5)).thenReturn(new User("cade", null, null, null, null, 15, 100, 0, 0));
+        doThrow(new SQLException("update failed")).when(cardDaoMock).updateOwner(any(), any(), anyBoolean(), any());
+
+        //act
+        PackagePurchase purchase = cardRepository.buyPackage("cade");
+
+        //assert
+        assertEquals(PackagePurchase.Status.FAILED, purchase.getStatus());
+        verify(connectionMock).rollback();
+        verify(connectionMock, never()).commit();
+        verify(userDaoMock, never()).committed(any());
+    }
+
+    private static ArrayList<Card> cards() {
+        return new ArrayList<>(List.of(
+                new Card("1", "WaterGoblin", 10, null, false),
+                new Card("2", "Dragon", 50, null, false)
+        ));
+    }
+}
@@ -0,0 +1,191 @@
+package app.repositories;
+
+import app.daos.CardDao;
+import app.daos.UserDao;
+import app.daos.UserWithCardsDao;
+import app.models.Card;
+import app.models.User;
+import app.models.UserWithCards;
+import app.services.ConnectionPool;
+import app.services.DatabaseConnection;
+import app.services.Leaderboard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//compares one UPDATE per card with the transactional, set based updateUser for a user with cardCount cards.
+//needs the database from MTCG_DB.sql (db.url, db.user, db.password like the server),
+//run with: mvn test-compile exec:java -Dexec.mainClass=app.repositories.UpdateUserBenchmark -Dexec.classpathScope=test
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UpdateUserBenchmark {
+    private static final String USERNAME = "updateUserBenchmark";
+
+    @Param({"10", "1000", "10000"})
+    private int cardCount;
+
+    //statements and commits sent to the database, counted on the physical connections
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong invocations = new AtomicLong();
+
+    private ConnectionPool connectionPool;
+    private UserDao userDao;
+    private CardDao cardDao;
+    private UserWithCardsRepository userWithCardsRepository;
+    private UserWithCards userWithCards;
+
+    @Setup
+    public void setup() throws SQLException {
+        connectionPool = new ConnectionPool(new CountingDatabaseConnection(), 1, 2, 5000, 60000);
+        userDao = new UserDao(connectionPool);
+        cardDao = new CardDao(connectionPool);
+        userWithCardsRepository = new UserWithCardsRepository(connectionPool, userDao, cardDao, new UserWithCardsDao(connectionPool), new Leaderboard());
+
+        deleteBenchmarkData();
+        try {
+            userDao.create(new User(USERNAME, "pw", null, null, null, 20, 100, 0, 0));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement stmt = connection.prepareStatement("INSERT INTO cards (card_id, name, damage, card_owner_username, is_in_deck) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < cardCount; i++) {
+                stmt.setString(1, USERNAME + "-" + i);
+                stmt.setString(2, "WaterGoblin");
+                stmt.setFloat(3, 10);
+                stmt.setString(4, USERNAME);
+                stmt.setBoolean(5, false);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+
+        userWithCards = userWithCardsRepository.getUser(USERNAME);
+        //a deck of 4 like after PUT /decks, the rest stays in the stack
+        for (int i = 0; i < Math.min(4, cardCount); i++) {
+            userWithCards.getDeck().add(userWithCards.getStack().remove(userWithCards.getStack().size() - 1));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        roundTrips.set(0);
+        invocations.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRoundTrips() {
+        System.out.printf("%n%d cards: %.1f round trips per updateUser%n", cardCount, (double) roundTrips.get() / Math.max(invocations.get(), 1));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        deleteBenchmarkData();
+    }
+
+    @Benchmark
+    public void perCardUpdates() {
+        invocations.incrementAndGet();
+        userDao.update(new User(USERNAME, "pw", null, null, null, userWithCards.getCoins(), userWithCards.getElo(), 0, 0));
+        for (Card card : userWithCards.getDeck()) {
+            card.setInDeck(true);
+            cardDao.update(card);
+        }
+        for (Card card : userWithCards.getStack()) {
+            card.setInDeck(false);
+            cardDao.update(card);
+        }
+    }
+
+    @Benchmark
+    public void transactionalUpdateUser() {
+        invocations.incrementAndGet();
+        userWithCardsRepository.updateUser(userWithCards);
+    }
+
+    private void deleteBenchmarkData() throws SQLException {
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement deleteCards = connection.prepareStatement("DELETE FROM cards WHERE card_owner_username = ?");
+             PreparedStatement deleteUser = connection.prepareStatement("DELETE FROM users WHERE username = ?")) {
+            deleteCards.setString(1, USERNAME);
+            deleteCards.executeUpdate();
+            deleteUser.setString(1, USERNAME);
+            deleteUser.executeUpdate();
+        }
+    }
+
+    //counts every execute and commit on the physical connections handed to the pool
+    private class CountingDatabaseConnection extends DatabaseConnection {
+        @Override
+        public Connection openConnection() throws SQLException {
+            Connection connection = super.openConnection();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("commit") || method.getName().equals("rollback")) {
+                            roundTrips.incrementAndGet();
+                        } else if (result instanceof PreparedStatement) {
+                            return countingStatement((PreparedStatement) result);
+                        }
+                        return result;
+                    }
+            );
+        }
+
+        private PreparedStatement countingStatement(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            roundTrips.incrementAndGet();
+                        }
+                        return invoke(statement, method, args);
+                    }
+            );
+        }
+
+        private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UpdateUserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
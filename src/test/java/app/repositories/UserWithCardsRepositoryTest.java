@@ -0,0 +1,57 @@
+package app.repositories;
+
+import app.daos.CardDao;
+import app.daos.UserDao;
+import app.daos.UserWithCardsDao;
+import app.models.User;
+import app.services.ConnectionPool;
+import app.services.Leaderboard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserWithCardsRepositoryTest {
+
+    private UserDao userDaoMock;
+    private Leaderboard leaderboardMock;
+    private UserWithCardsRepository userWithCardsRepository;
+
+    @BeforeEach
+    void beforeEach() {
+        userDaoMock = mock(UserDao.class);
+        leaderboardMock = mock(Leaderboard.class);
+        userWithCardsRepository = new UserWithCardsRepository(mock(ConnectionPool.class), userDaoMock, mock(CardDao.class),
+                mock(UserWithCardsDao.class), leaderboardMock);
+    }
+
+    @Test
+    @DisplayName("Test that a new user enters the leaderboard with the row that was inserted")
+    void testCreateUserUpdatesLeaderboardWithInsertedRow() throws IllegalAccessException {
+        //arrange
+        User user = new User("cade", "hash", null, null, null, 0, 0, 0, 0);
+        User inserted = new User("cade", "hash", null, null, null, 20, 100, 0, 0);
+        when(userDaoMock.create(user)).thenReturn(inserted);
+
+        //act
+        userWithCardsRepository.createUser(user);
+
+        //assert
+        verify(leaderboardMock).update(inserted);
+    }
+
+    @Test
+    @DisplayName("Test that a user who was not inserted never enters the leaderboard")
+    void testFailedCreateKeepsLeaderboard() throws IllegalAccessException {
+        //arrange
+        User user = new User("cade", "hash", null, null, null, 0, 0, 0, 0);
+        when(userDaoMock.create(user)).thenThrow(new IllegalStateException("user could not be created"));
+
+        //act & assert
+        assertThrows(IllegalStateException.class, () -> userWithCardsRepository.createUser(user));
+        verify(leaderboardMock, never()).update(any());
+    }
+}
@@ -0,0 +1,67 @@
+package app.services;
+
+import app.models.Card;
+import app.models.SimulationResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BattleSimulatorTest {
+
+    @Test
+    @DisplayName("Test that the same seed gives the same result no matter how many threads run the battles")
+    void testSeedIsDeterministic() {
+        //arrange
+        List<Card> deck1 = List.of(card("WaterGoblin", 10), card("FireSpell", 25), card("Knight", 30), card("Dragon", 40));
+        List<Card> deck2 = List.of(card("WaterSpell", 20), card("Ork", 35), card("FireElf", 15), card("Kraken", 25));
+
+        //act
+        SimulationResult single = new BattleSimulator(1).simulate(deck1, deck2, 50000, 42);
+        SimulationResult parallel = new BattleSimulator(4).simulate(deck1, deck2, 50000, 42);
+        SimulationResult otherSeed = new BattleSimulator(4).simulate(deck1, deck2, 50000, 43);
+
+        //assert
+        assertEquals(50000, single.getWins() + single.getDraws() + single.getLosses());
+        assertEquals(single.getWins(), parallel.getWins());
+        assertEquals(single.getDraws(), parallel.getDraws());
+        assertEquals(single.getLosses(), parallel.getLosses());
+        assertEquals(single.getAverageRounds(), parallel.getAverageRounds());
+        assertNotEquals(single.getWins(), otherSeed.getWins());
+    }
+
+    @Test
+    @DisplayName("Test that a deck that wins every round wins every battle and identical decks are even")
+    void testRatesAndConfidenceIntervals() {
+        //arrange
+        BattleSimulator simulator = new BattleSimulator(2);
+        List<Card> strong = List.of(card("Dragon", 100), card("Dragon", 100), card("Dragon", 100), card("Dragon", 100));
+        List<Card> weak = List.of(card("Goblin", 10), card("Goblin", 10), card("Goblin", 10), card("Goblin", 10));
+        List<Card> mixed = List.of(card("WaterSpell", 20), card("FireSpell", 20), card("Ork", 30), card("Knight", 30));
+
+        //act
+        SimulationResult stomp = simulator.simulate(strong, weak, 10000, 1);
+        SimulationResult mirror = simulator.simulate(mixed, mixed, 100000, 1);
+
+        //assert
+        assertEquals(10000, stomp.getWins());
+        assertEquals(1.0, stomp.getWinRate().getRate());
+        assertEquals(1.0, stomp.getWinRate().getHigh());
+        assertTrue(stomp.getWinRate().getLow() > 0.999);
+        assertEquals(0.0, stomp.getLossRate().getLow());
+        //every dragon round removes a goblin, captured goblins can draw against the remaining ones
+        assertTrue(stomp.getAverageRounds() >= 4.0);
+
+        SimulationResult.Rate win = mirror.getWinRate();
+        SimulationResult.Rate loss = mirror.getLossRate();
+        assertTrue(win.getLow() < win.getRate() && win.getRate() < win.getHigh());
+        assertTrue(win.getHigh() - win.getLow() < 0.01);
+        assertEquals(win.getRate(), loss.getRate(), 0.01);
+    }
+
+    private static Card card(String name, float damage) {
+        return new Card(null, name, damage, null, true);
+    }
+}
@@ -0,0 +1,106 @@
+package app.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionPoolTest {
+
+    private DatabaseConnection databaseConnectionMock;
+    private Connection lastOpenedConnection;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        databaseConnectionMock = mock(DatabaseConnection.class);
+        when(databaseConnectionMock.openConnection()).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(true);
+            when(connection.isValid(anyInt())).thenReturn(true);
+            lastOpenedConnection = connection;
+            return connection;
+        });
+    }
+
+    @Test
+    @DisplayName("Test that a returned connection is reused instead of opening a new one")
+    void testConnectionIsReused() throws SQLException {
+
+        //arrange
+        ConnectionPool connectionPool = new ConnectionPool(databaseConnectionMock, 1, 2, 100, 0);
+
+        //act
+        try (Connection connection = connectionPool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+        try (Connection connection = connectionPool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+
+        //assert
+        verify(databaseConnectionMock, times(1)).openConnection();
+        assertEquals(1, connectionPool.getMetrics().get("Total"));
+        assertEquals(0, connectionPool.getMetrics().get("Active"));
+        assertEquals(2L, connectionPool.getMetrics().get("Acquisitions"));
+    }
+
+    @Test
+    @DisplayName("Test that borrowing beyond the maximum size times out")
+    void testAcquireTimeout() throws SQLException {
+
+        //arrange
+        ConnectionPool connectionPool = new ConnectionPool(databaseConnectionMock, 0, 1, 50, 0);
+        Connection borrowed = connectionPool.getConnection();
+
+        //act & assert
+        assertThrows(SQLTimeoutException.class, connectionPool::getConnection);
+        assertEquals(1L, connectionPool.getMetrics().get("Timeouts"));
+
+        borrowed.close();
+        try (Connection connection = connectionPool.getConnection()) {
+            assertNotNull(connection);
+        }
+    }
+
+    @Test
+    @DisplayName("Test that a closed connection can not be used anymore")
+    void testClosedConnectionIsUnusable() throws SQLException {
+
+        //arrange
+        ConnectionPool connectionPool = new ConnectionPool(databaseConnectionMock, 0, 1, 50, 0);
+        Connection connection = connectionPool.getConnection();
+
+        //act
+        connection.close();
+        connection.close(); //closing twice must not hand out a second permit
+
+        //assert
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+        assertEquals(0, connectionPool.getMetrics().get("Active"));
+    }
+
+    @Test
+    @DisplayName("Test that an open transaction is rolled back when the connection is returned")
+    void testOpenTransactionIsRolledBack() throws SQLException {
+
+        //arrange
+        ConnectionPool connectionPool = new ConnectionPool(databaseConnectionMock, 1, 1, 50, 0);
+        Connection connection = connectionPool.getConnection();
+        Connection physicalConnection = lastOpenedConnection;
+        when(physicalConnection.getAutoCommit()).thenReturn(false);
+
+        //act
+        connection.close();
+
+        //assert
+        verify(physicalConnection).rollback();
+        verify(physicalConnection).setAutoCommit(true);
+    }
+}
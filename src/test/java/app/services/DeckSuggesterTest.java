@@ -0,0 +1,138 @@
+package app.services;
+
+import app.models.BattleRules;
+import app.models.Card;
+import app.models.DeckSuggestion;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeckSuggesterTest {
+
+    private static final String[] NAMES = {
+            "WaterGoblin", "FireGoblin", "RegularGoblin", "Dragon", "FireElf", "Wizzard", "Ork", "Knight", "Kraken",
+            "WaterSpell", "FireSpell", "RegularSpell"
+    };
+
+    @Test
+    @DisplayName("Test that the pruned search finds the same best score as trying every combination")
+    void testSameAsBruteForce() {
+        //arrange
+        Random random = new Random(7);
+        DeckSuggester suggester = new DeckSuggester(new BattleSimulator(2), 8, 10000);
+
+        for (int run = 0; run < 20; run++) {
+            List<Card> stack = randomCards(random, 12 + random.nextInt(20));
+            //twins, the search must not suggest the same deck twice
+            stack.add(new Card("twin", stack.get(0).getName(), stack.get(0).getDamage(), null, false));
+            List<List<Card>> opponents = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(8); i++) {
+                opponents.add(randomCards(random, 4));
+            }
+
+            //act
+            DeckSuggestion suggestion = suggester.suggest(stack, opponents, 3, run);
+            List<DeckSuggester.TopDecks.Entry> searched = suggester.search(new DeckSuggester.Candidates(stack, opponents), 3).merge();
+
+            //assert
+            assertTrue(suggestion.isComplete());
+            assertEquals(3, suggestion.getDecks().size());
+            assertEquals(bruteForceBest(stack, opponents), searched.get(0).score, 1e-12);
+            double bestSuggested = 0;
+            Set<List<String>> signatures = new HashSet<>();
+            for (DeckSuggestion.SuggestedDeck deck : suggestion.getDecks()) {
+                assertEquals(bruteForceScore(deck.getCards(), opponents), deck.getScore(), 1e-12);
+                bestSuggested = Math.max(bestSuggested, deck.getScore());
+                assertTrue(signatures.add(signature(deck.getCards())));
+            }
+            //the shortlist is the model's best decks, the best of them may have been ranked down by the simulation
+            assertTrue(bestSuggested <= searched.get(0).score + 1e-12);
+            assertTrue(suggestion.getDecks().get(0).getWinRate() >= suggestion.getDecks().get(2).getWinRate());
+        }
+    }
+
+    @Test
+    @DisplayName("Test that large stacks are pruned to the 4 strongest cards of every kind and searched within the time budget")
+    void testLargeStack() {
+        //arrange
+        Random random = new Random(11);
+        DeckSuggester suggester = new DeckSuggester(new BattleSimulator(2), 32, 2000);
+        List<Card> stack = randomCards(random, 5000);
+        List<List<Card>> opponents = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            opponents.add(randomCards(random, 4));
+        }
+
+        //act
+        long start = System.nanoTime();
+        DeckSuggestion suggestion = suggester.suggest(stack, opponents, 5, 1);
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        //assert
+        assertTrue(suggestion.getCandidates() <= 4 * 2 * NAMES.length);
+        assertEquals(5, suggestion.getDecks().size());
+        assertTrue(millis < 10000, millis + " ms");
+        DeckSuggestion.SuggestedDeck best = suggestion.getDecks().get(0);
+        assertEquals(4, best.getCards().size());
+        assertTrue(best.getWinRate() > 0.5, "win rate " + best.getWinRate());
+    }
+
+    private static List<Card> randomCards(Random random, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cards.add(new Card("c" + i, NAMES[random.nextInt(NAMES.length)], 5 + random.nextInt(12) * 5, null, false));
+        }
+        return cards;
+    }
+
+    private static double bruteForceBest(List<Card> stack, List<List<Card>> opponents) {
+        double best = -1;
+        for (int a = 0; a < stack.size(); a++) {
+            for (int b = a + 1; b < stack.size(); b++) {
+                for (int c = b + 1; c < stack.size(); c++) {
+                    for (int d = c + 1; d < stack.size(); d++) {
+                        best = Math.max(best, bruteForceScore(List.of(stack.get(a), stack.get(b), stack.get(c), stack.get(d)), opponents));
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static double bruteForceScore(List<Card> deck, List<List<Card>> opponents) {
+        double score = 0;
+        for (List<Card> opponent : opponents) {
+            int wins = 0;
+            int losses = 0;
+            for (Card mine : deck) {
+                for (Card theirs : opponent) {
+                    float dealt = BattleRules.damage(mine, theirs);
+                    float taken = BattleRules.damage(theirs, mine);
+                    if (dealt > taken) {
+                        wins++;
+                    } else if (taken > dealt) {
+                        losses++;
+                    }
+                }
+            }
+            score += DeckSuggester.score(wins, losses);
+        }
+        return score / opponents.size();
+    }
+
+    private static List<String> signature(List<Card> deck) {
+        List<String> signature = new ArrayList<>();
+        for (Card card : deck) {
+            signature.add(card.getName() + card.getDamage());
+        }
+        signature.sort(null);
+        return signature;
+    }
+}
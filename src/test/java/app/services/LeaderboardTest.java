@@ -0,0 +1,160 @@
+package app.services;
+
+import app.models.User;
+import app.models.UserScoreboard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    Leaderboard leaderboard;
+
+    @BeforeEach
+    void beforeEach() {
+        leaderboard = new Leaderboard();
+        leaderboard.load(List.of(
+                user("kienboec", 120),
+                user("altenhof", 95),
+                user("admin", 100),
+                user("cade", 100)
+        ), leaderboard.getVersion());
+    }
+
+    @Test
+    @DisplayName("Test that users are ranked by elo and then by username")
+    void testRanking() {
+        //act
+        ArrayList<UserScoreboard> page = leaderboard.page(0, 10);
+
+        //assert
+        assertEquals(4, page.size());
+        assertEquals("kienboec", page.get(0).getDisplayName());
+        assertEquals("admin", page.get(1).getDisplayName());
+        assertEquals("cade", page.get(2).getDisplayName());
+        assertEquals("altenhof", page.get(3).getDisplayName());
+        assertEquals(4, page.get(3).getRank());
+        assertEquals(3, leaderboard.rankOf("cade"));
+        assertEquals(0, leaderboard.rankOf("unknown"));
+    }
+
+    @Test
+    @DisplayName("Test that an elo change moves the user and pages start at the offset")
+    void testUpdateAndPage() {
+        //act
+        leaderboard.update(user("altenhof", 130));
+        ArrayList<UserScoreboard> page = leaderboard.page(1, 2);
+
+        //assert
+        assertEquals(1, leaderboard.rankOf("altenhof"));
+        assertEquals(4, leaderboard.size());
+        assertEquals(2, page.size());
+        assertEquals("kienboec", page.get(0).getDisplayName());
+        assertEquals(2, page.get(0).getRank());
+        assertEquals("admin", page.get(1).getDisplayName());
+    }
+
+    @Test
+    @DisplayName("Test ranks and pages against a sorted list after many random updates")
+    void testRandomUpdates() {
+        //arrange
+        Random random = new Random(42);
+        ArrayList<User> users = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            users.add(user("user" + i, 100));
+        }
+        leaderboard.load(users, leaderboard.getVersion());
+
+        //act
+        for (int i = 0; i < 5000; i++) {
+            User user = users.get(random.nextInt(users.size()));
+            user.setElo(user.getElo() + random.nextInt(11) - 5);
+            leaderboard.update(user);
+        }
+        users.sort(Comparator.comparingInt(User::getElo).reversed().thenComparing(User::getUsername));
+        ArrayList<UserScoreboard> page = leaderboard.page(200, 50);
+
+        //assert
+        assertEquals(500, leaderboard.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(i + 1, leaderboard.rankOf(users.get(i).getUsername()));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(users.get(200 + i).getDisplayName(), page.get(i).getDisplayName());
+        }
+    }
+
+    @Test
+    @DisplayName("Test that load is refused if the leaderboard changed while users were read")
+    void testLoadAfterConcurrentUpdate() {
+        //arrange
+        long version = leaderboard.getVersion();
+        leaderboard.update(user("cade", 200));
+
+        //act
+        boolean loaded = leaderboard.load(List.of(user("cade", 100)), version);
+
+        //assert
+        assertFalse(loaded);
+        assertEquals(1, leaderboard.rankOf("cade"));
+    }
+
+    @Test
+    @DisplayName("Test that a change the scoreboard does not show keeps the version and the ETag of rendered pages")
+    void testCoinsUpdateKeepsEtag() throws Exception {
+        //arrange
+        ScoreboardCache scoreboardCache = new ScoreboardCache();
+        long version = leaderboard.getVersion();
+        String etag = scoreboardCache.getPage(version, 0, 10, () -> new byte[0]).getEtag();
+        User cade = user("cade", 100);
+        cade.setCoins(15);
+        cade.setBio("bought a package");
+
+        //act
+        leaderboard.update(cade);
+        String etagAfterCoins = scoreboardCache.getPage(leaderboard.getVersion(), 0, 10, () -> new byte[0]).getEtag();
+        leaderboard.update(user("cade", 103));
+        String etagAfterElo = scoreboardCache.getPage(leaderboard.getVersion(), 0, 10, () -> new byte[0]).getEtag();
+
+        //assert
+        assertEquals(version, leaderboard.getVersion() - 1);
+        assertEquals(etag, etagAfterCoins);
+        assertNotEquals(etag, etagAfterElo);
+    }
+
+    @Test
+    @DisplayName("Test that a row older than the entry is ignored when concurrent writes report out of order")
+    void testOlderRowIgnored() {
+        //arrange
+        //a battle (1 battle) and a tournament round (2 more) committed in this order
+        User afterBattle = new User("cade", null, "cade", null, null, 20, 103, 1, 0);
+        User afterRound = new User("cade", null, "cade", null, null, 20, 96, 1, 2);
+        User renamed = new User("cade", null, "Cade", null, null, 20, 96, 1, 2);
+
+        //act
+        leaderboard.update(afterRound);
+        long version = leaderboard.getVersion();
+        leaderboard.update(afterBattle);
+        long versionAfterOlderRow = leaderboard.getVersion();
+        leaderboard.update(renamed);
+
+        //assert
+        assertEquals(version, versionAfterOlderRow);
+        //96 elo, still ahead of altenhof
+        assertEquals(3, leaderboard.rankOf("cade"));
+        UserScoreboard cade = leaderboard.page(2, 1).get(0);
+        assertEquals(96, cade.getElo());
+        assertEquals("Cade", cade.getDisplayName());
+    }
+
+    private User user(String username, int elo) {
+        return new User(username, null, username, null, null, 20, elo, 0, 0);
+    }
+}
@@ -0,0 +1,192 @@
+package app.services;
+
+import app.models.UserWithCards;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchmakerTest {
+
+    @Test
+    @DisplayName("Test that the closest elo is paired and players outside the window keep waiting")
+    void testPairsClosestElo() throws Exception {
+        //arrange
+        Matchmaker matchmaker = new Matchmaker(25, 50, 50, 60000);
+        Matchmaker.Ticket far = matchmaker.enqueue(user("far", 300));
+        Matchmaker.Ticket near = matchmaker.enqueue(user("near", 110));
+
+        //act
+        Matchmaker.Ticket player = matchmaker.enqueue(user("player", 100));
+
+        //assert
+        assertTrue(player.getMatch().isDone());
+        assertSame(near, player.getMatch().get().getPlayer1());
+        assertFalse(far.getMatch().isDone());
+        assertEquals(1, matchmaker.waiting());
+    }
+
+    @Test
+    @DisplayName("Test that the window grows with the waiting time and tickets time out")
+    void testWindowGrowsAndTimesOut() throws Exception {
+        //arrange
+        MutableClock clock = new MutableClock();
+        Matchmaker matchmaker = new Matchmaker(25, 50, 50, 10000, clock);
+        Matchmaker.Ticket low = matchmaker.enqueue(user("low", 100));
+        Matchmaker.Ticket high = matchmaker.enqueue(user("high", 300));
+        Matchmaker.Ticket lonely = matchmaker.enqueue(user("lonely", 5000));
+
+        //act
+        clock.advance(Duration.ofSeconds(2));
+        matchmaker.sweep();
+        boolean pairedAfterTwoSeconds = low.getMatch().isDone();
+        clock.advance(Duration.ofSeconds(2));
+        matchmaker.sweep();
+        clock.advance(Duration.ofSeconds(6));
+        matchmaker.sweep();
+
+        //assert
+        assertFalse(pairedAfterTwoSeconds);
+        assertSame(low.getMatch().get(), high.getMatch().get());
+        assertNull(lonely.getMatch().get());
+        assertEquals(0, matchmaker.waiting());
+    }
+
+    @Test
+    @DisplayName("Test that a cancelled ticket is never paired and a user can only wait once")
+    void testCancel() throws Exception {
+        //arrange
+        Matchmaker matchmaker = new Matchmaker(25, 50, 50, 60000);
+        Matchmaker.Ticket ticket = matchmaker.enqueue(user("cade", 100));
+
+        //act
+        Matchmaker.Ticket duplicate = matchmaker.enqueue(user("cade", 100));
+        boolean cancelled = matchmaker.cancel("cade");
+        Matchmaker.Ticket other = matchmaker.enqueue(user("bob", 100));
+
+        //assert
+        assertNull(duplicate);
+        assertTrue(cancelled);
+        assertNull(ticket.getMatch().get());
+        assertFalse(other.getMatch().isDone());
+        assertFalse(matchmaker.cancel(ticket));
+    }
+
+    @Test
+    @DisplayName("Test that matched players cannot queue again until their battle is finished")
+    void testInBattleUntilFinished() throws Exception {
+        //arrange
+        Matchmaker matchmaker = new Matchmaker(25, 50, 50, 60000);
+        matchmaker.enqueue(user("kienboec", 100));
+        Matchmaker.Ticket ticket = matchmaker.enqueue(user("altenhof", 100));
+        Matchmaker.Match match = ticket.getMatch().get();
+
+        //act
+        Matchmaker.Ticket duringBattle = matchmaker.enqueue(user("kienboec", 100));
+        boolean cancelledDuringBattle = matchmaker.cancel("altenhof");
+        int inBattle = matchmaker.inBattle();
+        matchmaker.finished(match);
+        Matchmaker.Ticket afterBattle = matchmaker.enqueue(user("kienboec", 100));
+
+        //assert
+        assertNull(duringBattle);
+        assertFalse(cancelledDuringBattle);
+        assertEquals(2, inBattle);
+        assertNotNull(afterBattle);
+        assertEquals(0, matchmaker.inBattle());
+        assertEquals(1, matchmaker.waiting());
+    }
+
+    @Test
+    @DisplayName("Test that players entering from many threads are all paired exactly once")
+    void testConcurrentPairing() throws Exception {
+        //arrange
+        Matchmaker matchmaker = new Matchmaker(25, 50, 50, 60000);
+        int threadCount = 8;
+        int playersPerThread = 1000;
+        List<Matchmaker.Ticket> tickets = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<List<Matchmaker.Ticket>> ticketsPerThread = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            int threadNumber = t;
+            List<Matchmaker.Ticket> own = new ArrayList<>();
+            ticketsPerThread.add(own);
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < playersPerThread; i++) {
+                    own.add(matchmaker.enqueue(user("player" + threadNumber + "-" + i, 100 + (i % 20))));
+                }
+            }));
+        }
+
+        //act
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        //the sweeper pairs whoever missed an opponent while entering
+        matchmaker.sweep();
+        ticketsPerThread.forEach(tickets::addAll);
+
+        //assert
+        assertEquals(0, matchmaker.waiting());
+        Set<Matchmaker.Ticket> paired = ConcurrentHashMap.newKeySet();
+        for (Matchmaker.Ticket ticket : tickets) {
+            Matchmaker.Match match = ticket.getMatch().getNow(null);
+            assertNotNull(match);
+            Matchmaker.Ticket opponent = match.getPlayer1() == ticket ? match.getPlayer2() : match.getPlayer1();
+            assertNotSame(ticket, opponent);
+            assertSame(match, opponent.getMatch().getNow(null));
+            paired.add(ticket);
+        }
+        assertEquals(threadCount * playersPerThread, paired.size());
+    }
+
+    private static UserWithCards user(String username, int elo) {
+        UserWithCards user = new UserWithCards();
+        user.setUsername(username);
+        user.setElo(elo);
+        return user;
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package app.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    @Test
+    @DisplayName("Test that cached values are returned and hits and misses are counted")
+    void testGetAndPut() {
+        //arrange
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, 60000);
+
+        //act
+        String missed = cache.get("kienboec");
+        cache.put("kienboec", "user kienboec");
+        String hit = cache.get("kienboec");
+
+        //assert
+        assertNull(missed);
+        assertEquals("user kienboec", hit);
+        assertEquals(1L, cache.getMetrics().get("Hits"));
+        assertEquals(1L, cache.getMetrics().get("Misses"));
+    }
+
+    @Test
+    @DisplayName("Test that frequently read entries survive a scan of one-time keys")
+    void testFrequentEntriesSurviveScan() {
+        //arrange
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, 60000);
+        for (int i = 0; i < 100; i++) {
+            cache.put("hot" + i, "hot");
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                cache.get("hot" + i);
+            }
+        }
+
+        //act
+        for (int i = 0; i < 500; i++) {
+            cache.get("cold" + i);
+            cache.put("cold" + i, "cold");
+        }
+
+        //assert
+        int hotEntries = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get("hot" + i) != null) {
+                hotEntries++;
+            }
+        }
+        assertTrue(hotEntries >= 90, "only " + hotEntries + " hot entries left");
+        assertTrue(cache.size() <= 100);
+        assertTrue((long) cache.getMetrics().get("Evictions") >= 500);
+    }
+
+    @Test
+    @DisplayName("Test that entries expire after the ttl and can be invalidated")
+    void testExpiryAndInvalidate() {
+        //arrange
+        MutableClock clock = new MutableClock();
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, 1000, clock);
+        cache.put("kienboec", "user kienboec");
+        cache.put("altenhof", "user altenhof");
+
+        //act
+        cache.invalidate("altenhof");
+        String beforeExpiry = cache.get("kienboec");
+        clock.advance(Duration.ofMillis(1000));
+        String afterExpiry = cache.get("kienboec");
+
+        //assert
+        assertNull(cache.get("altenhof"));
+        assertEquals("user kienboec", beforeExpiry);
+        assertNull(afterExpiry);
+    }
+
+    @Test
+    @DisplayName("Test that a value loaded before an invalidate is not cached")
+    void testPutIfVersionAfterInvalidate() {
+        //arrange
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, 60000);
+        long version = cache.version("kienboec");
+
+        //act
+        //a write happens while the old value is being loaded
+        cache.invalidate("kienboec");
+        boolean stalePut = cache.putIfVersion("kienboec", "old kienboec", version);
+        long newVersion = cache.version("kienboec");
+        boolean freshPut = cache.putIfVersion("kienboec", "new kienboec", newVersion);
+        boolean otherPut = cache.putIfVersion("altenhof", "user altenhof", cache.version("altenhof"));
+
+        //assert
+        assertFalse(stalePut);
+        assertTrue(freshPut);
+        assertEquals("new kienboec", cache.get("kienboec"));
+        //writes to one user do not stop caching of others
+        assertTrue(otherPut);
+    }
+
+    @Test
+    @DisplayName("Test that concurrent reads and writes never leave an outdated value in the cache")
+    void testConcurrentReadsAndInvalidates() throws Exception {
+        //arrange
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100, 60000);
+        AtomicInteger database = new AtomicInteger();
+        int readers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(() -> {
+                awaitQuietly(start);
+                while (writing.get()) {
+                    //read through like CachedUserDao.read
+                    if (cache.get("kienboec") == null) {
+                        long version = cache.version("kienboec");
+                        Integer loaded = database.get();
+                        Thread.yield();
+                        cache.putIfVersion("kienboec", loaded, version);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+
+        //act
+        start.countDown();
+        for (int write = 1; write <= 20000; write++) {
+            //like CachedUserDao: the database first, then the cache
+            database.set(write);
+            cache.invalidate("kienboec");
+        }
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        //assert
+        Integer cached = cache.get("kienboec");
+        assertTrue(cached == null || cached == 20000, "outdated value " + cached + " cached");
+    }
+
+    @Test
+    @DisplayName("Test that hits from many threads are counted and frequent entries are still kept")
+    void testConcurrentReads() throws Exception {
+        //arrange
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, 60000);
+        for (int i = 0; i < 100; i++) {
+            cache.put("hot" + i, "hot");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int round = 0; round < 100; round++) {
+                    for (int i = 0; i < 100; i++) {
+                        cache.get("hot" + i);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        for (int i = 0; i < 200; i++) {
+            cache.get("cold" + i);
+            cache.put("cold" + i, "cold");
+        }
+
+        //assert
+        assertEquals(40000L, cache.getMetrics().get("Hits"));
+        int hotEntries = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get("hot" + i) != null) {
+                hotEntries++;
+            }
+        }
+        assertTrue(hotEntries >= 90, "only " + hotEntries + " hot entries left");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package app.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+
+    private static final byte[] OLD_KEY = "old-secret".getBytes();
+    private static final byte[] NEW_KEY = "new-secret".getBytes();
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("Test that an issued token is verified to its username")
+    void testIssueAndVerify() {
+        //arrange
+        TokenService tokenService = new TokenService(Map.of("k1", OLD_KEY), "k1", 60000, false, clock);
+
+        //act
+        String token = tokenService.issue("kienboec");
+
+        //assert
+        assertEquals("kienboec", tokenService.verify(token));
+    }
+
+    @Test
+    @DisplayName("Test that tampered, expired and legacy tokens are rejected")
+    void testRejectInvalidTokens() {
+        //arrange
+        TokenService tokenService = new TokenService(Map.of("k1", OLD_KEY), "k1", 60000, false, clock);
+        TokenService laterTokenService = new TokenService(Map.of("k1", OLD_KEY), "k1", 60000, false, Clock.offset(clock, Duration.ofMinutes(2)));
+        String token = tokenService.issue("kienboec");
+        String[] parts = token.split("\\.");
+        String otherUsername = Base64.getUrlEncoder().withoutPadding().encodeToString("admin".getBytes());
+
+        //act
+        String tamperedToken = parts[0] + "." + parts[1] + "." + parts[2] + "." + otherUsername + "." + parts[4];
+
+        //assert
+        assertNull(tokenService.verify(tamperedToken));
+        assertNull(tokenService.verify(token.substring(0, token.length() - 2)));
+        assertNull(laterTokenService.verify(token)); //expired
+        assertNull(tokenService.verify("kienboec-mtcgToken"));
+        assertNull(tokenService.legacyUsername("kienboec-mtcgToken")); //legacy tokens are off
+    }
+
+    @Test
+    @DisplayName("Test that tokens of the previous key are accepted after a key rotation")
+    void testKeyRotation() {
+        //arrange
+        TokenService beforeRotation = new TokenService(Map.of("k1", OLD_KEY), "k1", 60000, false, clock);
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        keys.put("k1", OLD_KEY);
+        keys.put("k2", NEW_KEY);
+        TokenService afterRotation = new TokenService(keys, "k2", 60000, false, clock);
+        TokenService oldKeyRemoved = new TokenService(Map.of("k2", NEW_KEY), "k2", 60000, false, clock);
+        String oldToken = beforeRotation.issue("altenhof");
+
+        //act
+        String newToken = afterRotation.issue("altenhof");
+
+        //assert
+        assertTrue(newToken.startsWith("k2."));
+        assertEquals("altenhof", afterRotation.verify(oldToken));
+        assertEquals("altenhof", afterRotation.verify(newToken));
+        assertNull(oldKeyRemoved.verify(oldToken));
+    }
+
+    @Test
+    @DisplayName("Test that legacy tokens are only mapped to a username if enabled")
+    void testLegacyTokens() {
+        //arrange
+        TokenService tokenService = new TokenService(Map.of("k1", OLD_KEY), "k1", 60000, true, clock);
+
+        //act
+        String username = tokenService.legacyUsername("kienboec-mtcgToken");
+
+        //assert
+        assertEquals("kienboec", username);
+        assertNull(tokenService.verify("kienboec-mtcgToken"));
+    }
+}
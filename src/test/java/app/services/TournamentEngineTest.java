@@ -0,0 +1,221 @@
+package app.services;
+
+import app.models.BattleLog;
+import app.models.Card;
+import app.models.Tournament;
+import app.models.UserWithCards;
+import app.repositories.BattleRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TournamentEngineTest {
+
+    private static final String[] NAMES = {"WaterGoblin", "FireElf", "Dragon", "Ork", "Knight", "Kraken", "FireSpell", "WaterSpell"};
+
+    @Test
+    @DisplayName("Test that the seeding keeps the best players apart until the last rounds")
+    void testSeedOrder() {
+        //act & assert
+        assertArrayEquals(new int[]{1, 2}, TournamentEngine.seedOrder(2));
+        assertArrayEquals(new int[]{1, 8, 4, 5, 2, 7, 3, 6}, TournamentEngine.seedOrder(8));
+        int[] order = TournamentEngine.seedOrder(4096);
+        for (int i = 0; i < order.length; i += 2) {
+            assertEquals(order.length + 1, order[i] + order[i + 1]);
+        }
+    }
+
+    @Test
+    @DisplayName("Test that a tournament with byes is played round by round and every round is saved once")
+    void testTournamentWithByes() {
+        //arrange
+        BattleRepository battleRepositoryMock = battleRepository();
+        TournamentEngine engine = new TournamentEngine(battleRepositoryMock, Runnable::run, 60000);
+        Tournament tournament = engine.create("cup", 8, null);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Tournament.Registration.REGISTERED, engine.register(tournament, user("player" + i, 100 + i * 10, i)));
+        }
+
+        //act
+        engine.start(tournament).join();
+
+        //assert
+        Map<String, Object> summary = tournament.summarize();
+        assertEquals("FINISHED", summary.get("State"));
+        assertEquals(3, summary.get("Round"));
+        assertEquals(3, summary.get("Rounds"));
+        assertEquals(4, summary.get("MatchesPlayed"));
+        assertEquals(4, summary.get("Matches"));
+        assertNotNull(summary.get("Champion"));
+
+        List<List<Map<String, Object>>> rounds = rounds(tournament);
+        assertEquals(List.of(4, 2, 1), List.of(rounds.get(0).size(), rounds.get(1).size(), rounds.get(2).size()));
+        //the three best players have byes, the two worst play each other
+        Set<Object> byes = new HashSet<>();
+        for (Map<String, Object> match : rounds.get(0)) {
+            if (match.get("Player2") == null) {
+                byes.add(match.get("Player1"));
+                assertEquals(match.get("Player1"), match.get("Winner"));
+                assertNull(match.get("Battle"));
+            } else {
+                assertEquals(Set.of("player1", "player0"), Set.of(match.get("Player1"), match.get("Player2")));
+                assertNotNull(match.get("Battle"));
+            }
+        }
+        assertEquals(Set.of("player4", "player3", "player2"), byes);
+        assertEquals(summary.get("Champion"), rounds.get(2).get(0).get("Winner"));
+        verify(battleRepositoryMock, times(3)).settleRound(anyList());
+    }
+
+    @Test
+    @DisplayName("Test that all battles of a round run on the executor and are saved together")
+    void testRoundsRunConcurrently() throws Exception {
+        //arrange
+        BattleRepository battleRepositoryMock = battleRepository();
+        //a small queue, overflowing battles are fought by the thread that starts them
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(8),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        TournamentEngine engine = new TournamentEngine(battleRepositoryMock, executor, 60000);
+        Tournament tournament = engine.create("open", 64, null);
+        for (int i = 0; i < 64; i++) {
+            engine.register(tournament, user("player" + i, 100, i));
+        }
+
+        //act
+        engine.start(tournament).get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //assert
+        assertEquals(Tournament.State.FINISHED, tournament.getState());
+        assertEquals(63, tournament.summarize().get("MatchesPlayed"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BattleLog>> roundCaptor = ArgumentCaptor.forClass(List.class);
+        verify(battleRepositoryMock, times(6)).settleRound(roundCaptor.capture());
+        int matches = 32;
+        for (List<BattleLog> round : roundCaptor.getAllValues()) {
+            Set<String> players = new HashSet<>();
+            for (BattleLog battleLog : round) {
+                players.add(battleLog.getUsername1());
+                players.add(battleLog.getUsername2());
+            }
+            //every player of the round fought, drawn matches were fought again
+            assertEquals(matches * 2, players.size());
+            assertTrue(round.size() >= matches);
+            matches /= 2;
+        }
+    }
+
+    @Test
+    @DisplayName("Test that registration closes when the tournament starts and a full tournament takes no one")
+    void testRegistration() {
+        //arrange
+        TournamentEngine engine = new TournamentEngine(battleRepository(), Runnable::run, 60000);
+        Tournament tournament = engine.create("duel", 2, null);
+
+        //act & assert
+        assertEquals(Tournament.Registration.REGISTERED, engine.register(tournament, user("a", 100, 0)));
+        assertEquals(Tournament.Registration.ALREADY_REGISTERED, engine.register(tournament, user("a", 100, 0)));
+        assertEquals(Tournament.Registration.REGISTERED, engine.register(tournament, user("b", 100, 1)));
+        assertEquals(Tournament.Registration.FULL, engine.register(tournament, user("c", 100, 2)));
+        assertNotNull(engine.start(tournament));
+        assertNull(engine.start(tournament));
+        assertEquals(Tournament.Registration.CLOSED, engine.register(tournament, user("c", 100, 2)));
+
+        Tournament empty = engine.create("empty", 2, null);
+        engine.register(empty, user("a", 100, 0));
+        engine.start(empty).join();
+        assertEquals(Tournament.State.CANCELLED, empty.getState());
+        assertThrows(IllegalArgumentException.class, () -> engine.create("huge", TournamentEngine.MAX_PLAYERS + 1, null));
+    }
+
+    @Test
+    @DisplayName("Test that a tournament stops if a round cannot be saved")
+    void testFailedRound() {
+        //arrange
+        BattleRepository battleRepositoryMock = mock(BattleRepository.class);
+        when(battleRepositoryMock.settleRound(anyList())).thenThrow(new IllegalStateException("tournament round could not be saved"));
+        TournamentEngine engine = new TournamentEngine(battleRepositoryMock, Runnable::run, 60000);
+        Tournament tournament = engine.create("cup", 4, null);
+        for (int i = 0; i < 4; i++) {
+            engine.register(tournament, user("player" + i, 100, i));
+        }
+
+        //act
+        engine.start(tournament).join();
+
+        //assert
+        assertEquals(Tournament.State.FAILED, tournament.getState());
+        assertEquals(1, rounds(tournament).size());
+        assertNull(tournament.summarize().get("Champion"));
+    }
+
+    @Test
+    @DisplayName("Test that tournaments are dropped once their retention after the end has passed")
+    void testEndedTournamentsAreDropped() throws Exception {
+        //arrange
+        TournamentEngine engine = new TournamentEngine(battleRepository(), Runnable::run, 50);
+        Tournament finished = engine.create("cup", 2, null);
+        engine.register(finished, user("a", 100, 0));
+        engine.register(finished, user("b", 100, 1));
+        Tournament cancelled = engine.create("empty", 2, null);
+        Tournament waiting = engine.create("later", 2, null);
+
+        //act
+        engine.start(finished).join();
+        engine.start(cancelled).join();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (engine.getAll().size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        //assert
+        assertNull(engine.get(finished.getId()));
+        assertNull(engine.get(cancelled.getId()));
+        assertSame(waiting, engine.get(waiting.getId()));
+    }
+
+    private static BattleRepository battleRepository() {
+        BattleRepository battleRepositoryMock = mock(BattleRepository.class);
+        AtomicLong nextId = new AtomicLong();
+        when(battleRepositoryMock.settleRound(anyList())).thenAnswer(invocation -> {
+            long[] battleIds = new long[invocation.<List<BattleLog>>getArgument(0).size()];
+            for (int i = 0; i < battleIds.length; i++) {
+                battleIds[i] = nextId.incrementAndGet();
+            }
+            return battleIds;
+        });
+        return battleRepositoryMock;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<Map<String, Object>>> rounds(Tournament tournament) {
+        return (List<List<Map<String, Object>>>) tournament.bracket().get("Rounds");
+    }
+
+    private static UserWithCards user(String username, int elo, int variant) {
+        UserWithCards user = new UserWithCards();
+        user.setUsername(username);
+        user.setElo(elo);
+        user.setDeck(new ArrayList<>());
+        user.setStack(new ArrayList<>());
+        for (int i = 0; i < 4; i++) {
+            String name = NAMES[(variant + i * 3) % NAMES.length];
+            user.getDeck().add(new Card(username + "-" + i, name, 10 + (variant * 7 + i * 13) % 60, null, true));
+        }
+        return user;
+    }
+}
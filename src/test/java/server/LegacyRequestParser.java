@@ -0,0 +1,52 @@
+package server;
+
+import http.Method;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Locale;
+
+//the former line based Request.buildRequest, kept only as baseline for RequestParserBenchmark
+class LegacyRequestParser {
+    private static final String CONTENT_TYPE = "Content-Type: ";
+    private static final String CONTENT_LENGTH = "Content-Length: ";
+    private static final String AUTHORIZATION = "Authorization: Bearer ";
+
+    static Request parse(BufferedReader inputStream) throws IOException {
+        Request request = new Request();
+        String line = inputStream.readLine();
+
+        if (line != null) {
+            String[] splitFirstLine = line.split(" ");
+            boolean hasParams = splitFirstLine[1].indexOf("?") != -1;
+
+            request.setMethod(Method.valueOf(splitFirstLine[0].toUpperCase(Locale.ROOT)));
+            request.setPathname(hasParams ? splitFirstLine[1].split("\\?")[0] : splitFirstLine[1]);
+            request.setParams(hasParams ? splitFirstLine[1].split("\\?")[1] : "");
+
+            while (!line.isEmpty()) {
+                line = inputStream.readLine();
+                if (line.startsWith(CONTENT_LENGTH)) {
+                    request.setContentLength(Integer.parseInt(line.substring(CONTENT_LENGTH.length())));
+                }
+                if (line.startsWith(CONTENT_TYPE)) {
+                    request.setContentType(line.substring(CONTENT_TYPE.length()));
+                }
+                if (line.startsWith(AUTHORIZATION)) {
+                    request.setToken(line.substring(AUTHORIZATION.length()).replace("-mtcgToken", ""));
+                }
+            }
+
+            if (request.getMethod() == Method.POST || request.getMethod() == Method.PUT) {
+                String body = "";
+                if (request.getContentLength() != null) {
+                    for (int i = 0; i < request.getContentLength(); i++) {
+                        body = body + ((char) inputStream.read());
+                    }
+                }
+                request.setBodyBytes(body.getBytes());
+            }
+        }
+        return request;
+    }
+}
@@ -0,0 +1,77 @@
+package server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+//compares the line based parser with RequestParser for POST /packages requests
+//run with: mvn test-compile exec:java -Dexec.mainClass=server.RequestParserBenchmark -Dexec.classpathScope=test
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RequestParserBenchmark {
+
+    @Param({"1024", "1048576"})
+    private int bodySize;
+
+    private byte[] requestBytes;
+
+    @Setup
+    public void setup() {
+        StringBuilder body = new StringBuilder("[");
+        int cardNumber = 0;
+        while (body.length() < bodySize - 80) {
+            if (cardNumber > 0) {
+                body.append(',');
+            }
+            body.append("{\"Id\":\"card-").append(cardNumber++).append("\",\"Name\":\"WaterGoblin\",\"Damage\":10.0}");
+        }
+        body.append(']');
+        while (body.length() < bodySize) {
+            body.append(' ');
+        }
+
+        String head = "POST /packages HTTP/1.1\r\n" +
+                "Host: localhost:10001\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Authorization: Bearer admin-mtcgToken\r\n" +
+                "Content-Length: " + bodySize + "\r\n" +
+                "\r\n";
+        requestBytes = (head + body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Request lineBasedParser() throws IOException {
+        return LegacyRequestParser.parse(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(requestBytes))));
+    }
+
+    @Benchmark
+    public Request byteParser() throws IOException {
+        return new RequestParser().readRequest(new ByteArrayInputStream(requestBytes));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RequestParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
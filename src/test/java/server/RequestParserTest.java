@@ -0,0 +1,111 @@
+package server;
+
+import http.Method;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestParserTest {
+
+    private RequestParser requestParser;
+
+    @BeforeEach
+    void beforeEach() {
+        requestParser = new RequestParser();
+    }
+
+    @Test
+    @DisplayName("Test parsing request line, headers and body")
+    void testParseRequest() throws IOException {
+
+        //arrange
+        String rawRequest = "PUT /users/cade?format=plain HTTP/1.1\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Authorization: Bearer cade-mtcgToken\r\n" +
+                "Content-Length: 16\r\n" +
+                "\r\n" +
+                "{\"Name\": \"Cade\"}";
+
+        //act
+        Request request = requestParser.readRequest(new ByteArrayInputStream(rawRequest.getBytes(StandardCharsets.UTF_8)));
+
+        //assert
+        assertEquals(Method.PUT, request.getMethod());
+        assertEquals("/users/cade", request.getPathname());
+        assertEquals("format=plain", request.getParams());
+        assertEquals("application/json", request.getContentType());
+        assertEquals("cade-mtcgToken", request.getToken());
+        assertEquals("{\"Name\": \"Cade\"}", request.getBody());
+        assertTrue(request.isKeepAlive());
+    }
+
+    @Test
+    @DisplayName("Test that Content-Length counts bytes, not characters")
+    void testParseMultiByteBody() throws IOException {
+
+        //arrange
+        //"Zoë 🐉" is 6 characters but 9 bytes in UTF-8
+        byte[] body = "{\"Bio\": \"Zoë 🐉\"}".getBytes(StandardCharsets.UTF_8);
+        String head = "POST /users HTTP/1.1\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n";
+
+        ByteBuffer rawRequest = ByteBuffer.allocate(head.length() + body.length);
+        rawRequest.put(head.getBytes(StandardCharsets.US_ASCII));
+        rawRequest.put(body);
+
+        //act
+        Request request = requestParser.readRequest(new ByteArrayInputStream(rawRequest.array()));
+
+        //assert
+        assertEquals("{\"Bio\": \"Zoë 🐉\"}", request.getBody());
+        assertFalse(request.isKeepAlive());
+    }
+
+    @Test
+    @DisplayName("Test that a request split over several reads is only returned once complete")
+    void testIncrementalParsing() throws IOException {
+
+        //arrange
+        byte[] rawRequest = "POST /sessions HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello".getBytes(StandardCharsets.US_ASCII);
+
+        //act & assert
+        for (int i = 0; i < rawRequest.length - 1; i++) {
+            requestParser.getWritableBuffer().put(rawRequest[i]);
+            assertNull(requestParser.nextRequest());
+        }
+        requestParser.getWritableBuffer().put(rawRequest[rawRequest.length - 1]);
+        assertEquals("hello", requestParser.nextRequest().getBody());
+    }
+
+    @Test
+    @DisplayName("Test pipelined requests on one connection")
+    void testPipelinedRequests() throws IOException {
+
+        //arrange
+        String rawRequests = "GET /stats HTTP/1.1\r\n\r\n" +
+                "GET /scores HTTP/1.1\r\n\r\n";
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(rawRequests.getBytes(StandardCharsets.US_ASCII));
+
+        //act & assert
+        assertEquals("/stats", requestParser.readRequest(inputStream).getPathname());
+        assertEquals("/scores", requestParser.readRequest(inputStream).getPathname());
+        assertNull(requestParser.readRequest(inputStream)); //end of stream
+    }
+
+    @Test
+    @DisplayName("Test unknown method is rejected")
+    void testUnknownMethod() {
+
+        //arrange
+        byte[] rawRequest = "BREW /coffee HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        //act & assert
+        assertThrows(IllegalArgumentException.class, () -> requestParser.readRequest(new ByteArrayInputStream(rawRequest)));
+    }
+}
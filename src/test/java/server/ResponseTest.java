@@ -0,0 +1,175 @@
+package server;
+
+import http.ContentType;
+import http.HttpStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseTest {
+
+    @Test
+    @DisplayName("Test that a response with an empty body still has its status line and headers")
+    void testEncodeEmptyBody() {
+        //arrange
+        Response response = new Response(HttpStatus.NOT_MODIFIED, ContentType.JSON, new byte[0], "\"7\"");
+
+        //act
+        ByteBuffer[] buffers = response.encode(true);
+
+        //assert
+        assertEquals("HTTP/1.1 304 Not Modified\r\n" +
+                "Content-Type: application/json\r\n" +
+                "ETag: \"7\"\r\n" +
+                "Content-Length: 0\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n", text(buffers));
+        assertFalse(buffers[1].hasRemaining());
+        assertTrue(Response.hasRemaining(buffers));
+    }
+
+    @Test
+    @DisplayName("Test that Content-Length is the number of UTF-8 bytes and not of characters")
+    void testEncodeNonAsciiBody() {
+        //arrange
+        Response response = new Response(HttpStatus.OK, ContentType.JSON, "{ \"data\": \"Kienböck €\", \"error\": null }");
+
+        //act
+        ByteBuffer[] buffers = response.encode(false);
+
+        //assert
+        String encoded = text(buffers);
+        assertTrue(encoded.contains("Content-Length: 42\r\nConnection: close\r\n\r\n"));
+        assertTrue(encoded.endsWith("{ \"data\": \"Kienböck €\", \"error\": null }"));
+    }
+
+    @Test
+    @DisplayName("Test that partial gathering writes are continued until headers and body are sent")
+    void testPartialWrites() throws IOException {
+        //arrange
+        Response response = new Response(HttpStatus.OK, ContentType.JSON, "{ \"data\": \"ok\", \"error\": null }");
+        String expected = text(response.encode(true));
+        //a few bytes per call, the first call sends nothing and a later one stops inside the headers
+        ThrottledChannel channel = new ThrottledChannel(7);
+        ByteBuffer[] buffers = response.encode(true);
+
+        //act
+        int writes = 1;
+        while (!Response.writeOnce(channel, buffers)) {
+            writes++;
+        }
+        ThrottledChannel blockingChannel = new ThrottledChannel(7);
+        Response.writeFully(blockingChannel, response.encode(true));
+
+        //assert
+        assertEquals(expected, channel.written());
+        assertEquals(expected, blockingChannel.written());
+        assertTrue(writes > 2);
+    }
+
+    @Test
+    @DisplayName("Test that a partial write of the headers of an empty body is not reported as done")
+    void testPartialWriteEmptyBody() throws IOException {
+        //arrange
+        Response response = new Response(HttpStatus.NOT_MODIFIED, ContentType.JSON, new byte[0], "\"7\"");
+        ThrottledChannel channel = new ThrottledChannel(10);
+        ByteBuffer[] buffers = response.encode(true);
+
+        //act
+        boolean doneAfterFirstWrite = Response.writeOnce(channel, buffers);
+        Response.writeFully(channel, buffers);
+
+        //assert
+        assertFalse(doneAfterFirstWrite);
+        assertEquals(text(response.encode(true)), channel.written());
+    }
+
+    @Test
+    @DisplayName("Test that a socket without channel gets status line, headers and an empty body")
+    void testWriteToStream() throws IOException {
+        //arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Socket socket = new Socket() {
+            @Override
+            public OutputStream getOutputStream() {
+                return out;
+            }
+        };
+        Response response = new Response(HttpStatus.NOT_MODIFIED, ContentType.JSON, new byte[0], "\"7\"");
+
+        //act
+        response.writeTo(socket, true);
+
+        //assert
+        assertEquals(text(response.encode(true)), out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String text(ByteBuffer[] buffers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer copy = buffer.duplicate();
+            while (copy.hasRemaining()) {
+                out.write(copy.get());
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    //writes at most maxBytes per call and nothing on every third call, like a full socket send buffer
+    private static class ThrottledChannel implements GatheringByteChannel {
+        private final int maxBytes;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int calls = 0;
+
+        ThrottledChannel(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        String written() {
+            return out.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            if (calls++ % 3 == 0) {
+                return 0;
+            }
+            long written = 0;
+            for (int i = offset; i < offset + length && written < maxBytes; i++) {
+                while (srcs[i].hasRemaining() && written < maxBytes) {
+                    out.write(srcs[i].get());
+                    written++;
+                }
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src});
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package server;
+
+import http.ContentType;
+import http.HttpStatus;
+import http.Method;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouterTest {
+
+    private Router router;
+
+    @BeforeEach
+    void beforeEach() {
+        router = new Router();
+        RouteHandler handler = (request, match) -> new Response(HttpStatus.OK, ContentType.TEXT, "");
+
+        router.addRoute(Method.GET, "/decks", AuthRequirement.USER, handler);
+        router.addRoute(Method.PUT, "/decks", AuthRequirement.USER, handler);
+        router.addRoute(Method.GET, "/decks/suggest", AuthRequirement.USER, handler);
+        router.addRoute(Method.GET, "/decks/{username}", AuthRequirement.USER, handler);
+        router.addRoute(Method.GET, "/users/{username}", AuthRequirement.SELF_OR_ADMIN, handler);
+        router.addRoute(Method.GET, "/battles/{id:long}", AuthRequirement.USER, handler);
+    }
+
+    @Test
+    @DisplayName("Test matching static routes by method")
+    void testMatchStaticRoute() {
+
+        //act
+        RouteMatch getMatch = router.match(Method.GET, "/decks");
+        RouteMatch putMatch = router.match(Method.PUT, "/decks");
+        RouteMatch postMatch = router.match(Method.POST, "/decks");
+
+        //assert
+        assertEquals("/decks", getMatch.getRoute().getPattern());
+        assertEquals(Method.PUT, putMatch.getRoute().getMethod());
+        assertNull(postMatch); //no fall through into other methods
+    }
+
+    @Test
+    @DisplayName("Test path parameters and static segments taking precedence")
+    void testMatchPathParameter() {
+
+        //act
+        RouteMatch userDeck = router.match(Method.GET, "/decks/cade");
+        RouteMatch suggestion = router.match(Method.GET, "/decks/suggest");
+
+        //assert
+        assertEquals("/decks/{username}", userDeck.getRoute().getPattern());
+        assertEquals("cade", userDeck.getParameter("username"));
+        assertEquals("/decks/suggest", suggestion.getRoute().getPattern());
+        assertNull(router.match(Method.GET, "/decks/cade/extra"));
+        assertNull(router.match(Method.GET, "/decks/"));
+    }
+
+    @Test
+    @DisplayName("Test numeric path parameters")
+    void testMatchNumericParameter() {
+
+        //act & assert
+        assertEquals(42L, router.match(Method.GET, "/battles/42").getLongParameter("id"));
+        assertNull(router.match(Method.GET, "/battles/abc"));
+    }
+
+    @Test
+    @DisplayName("Test auth requirements of matched routes")
+    void testAuthRequirement() {
+
+        //arrange
+        RouteMatch match = router.match(Method.GET, "/users/cade");
+
+        //act & assert
+        assertTrue(match.getRoute().getAuthRequirement().allows("cade", match));
+        assertTrue(match.getRoute().getAuthRequirement().allows("admin", match));
+        assertFalse(match.getRoute().getAuthRequirement().allows("bob", match));
+        assertFalse(match.getRoute().getAuthRequirement().allows(null, match));
+    }
+
+    @Test
+    @DisplayName("Test duplicate routes are rejected")
+    void testDuplicateRoute() {
+
+        //act & assert
+        assertThrows(IllegalArgumentException.class, () -> router.addRoute(Method.GET, "/decks", AuthRequirement.NONE,
+                (request, match) -> null));
+    }
+}